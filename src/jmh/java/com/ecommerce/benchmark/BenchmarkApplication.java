@@ -0,0 +1,84 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.EcommerceBackendApplication;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application for benchmarks against a private in-memory H2 database by default, or against the
+ * PostgreSQL database named by {@code -Dbenchmark.postgres.url}. That database is wiped and migrated with
+ * Flyway on every start, so point it at a scratch database.
+ */
+public final class BenchmarkApplication {
+    
+    static final String POSTGRES_URL = "benchmark.postgres.url";
+    
+    private BenchmarkApplication() {
+    }
+    
+    public static boolean usesPostgres() {
+        return System.getProperty(POSTGRES_URL) != null;
+    }
+    
+    public static ConfigurableApplicationContext start(String... properties) {
+        return run(WebApplicationType.NONE, properties);
+    }
+    
+    // Same, with the embedded web server on a random port for HTTP load tests
+    public static ConfigurableApplicationContext startServer(String... properties) {
+        List<String> arguments = new ArrayList<>(List.of("server.port=0"));
+        arguments.addAll(List.of(properties));
+        return run(WebApplicationType.SERVLET, arguments.toArray(String[]::new));
+    }
+    
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String... properties) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.springframework.transaction=WARN"));
+        arguments.addAll(usesPostgres() ? postgres() : h2());
+        arguments.addAll(List.of(properties));
+        
+        // Passed as command line arguments so they take precedence over application.properties
+        return new SpringApplicationBuilder(EcommerceBackendApplication.class)
+                .web(webApplicationType)
+                .logStartupInfo(false)
+                .run(arguments.stream().map(argument -> "--" + argument).toArray(String[]::new));
+    }
+    
+    private static List<String> h2() {
+        return List.of(
+                "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";LOCK_TIMEOUT=10000",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.flyway.enabled=false",
+                "catalog.search.full-text=false");
+    }
+    
+    private static List<String> postgres() {
+        String url = System.getProperty(POSTGRES_URL);
+        String username = System.getProperty("benchmark.postgres.username", "postgres");
+        String password = System.getProperty("benchmark.postgres.password", "password");
+        
+        // Every trial starts from an empty schema so dataset sizes are exactly the requested ones
+        Flyway.configure().dataSource(url, username, password).cleanDisabled(false).load().clean();
+        return List.of(
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=" + username,
+                "spring.datasource.password=" + password,
+                "spring.flyway.enabled=true",
+                "catalog.search.full-text=true");
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Diffs two JMH JSON reports (e.g. the previous release against {@code target/jmh-result.json}):
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@compare-benchmarks -Dbenchmark.baseline=jmh-baseline.json
+ * </pre>
+ * Prints one line per benchmark and parameter combination and exits with status 1 when any result got
+ * worse by more than the threshold percentage (default 10) and by more than the two error margins combined.
+ */
+public final class BenchmarkComparison {
+    
+    private BenchmarkComparison() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(args[0]);
+        Map<String, JsonNode> current = read(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        
+        int regressions = 0;
+        System.out.printf("%-80s %16s %16s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double score = now.path("primaryMetric").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-80s %16s %16s %9s%n", entry.getKey(), "-", format(score, unit), "new");
+                continue;
+            }
+            double previous = before.path("primaryMetric").path("score").asDouble();
+            double change = (score - previous) / previous * 100;
+            // Throughput modes improve upwards, time modes downwards
+            double worse = now.path("mode").asText().equals("thrpt") ? -change : change;
+            double noise = error(before) + error(now);
+            boolean regression = worse > threshold && Math.abs(score - previous) > noise;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-80s %16s %16s %+8.1f%%%s%n", entry.getKey(), format(previous, unit),
+                    format(score, unit), change, regression ? "  REGRESSION" : "");
+        }
+        baseline.keySet().stream().filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-80s %16s %16s %9s%n", key, "", "-", "removed"));
+        
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+    
+    // Keyed by benchmark method plus sorted parameters, so reports with reordered runs still line up
+    private static Map<String, JsonNode> read(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.ecommerce.benchmark.", ""));
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+    
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+    
+    private static String format(double score, String unit) {
+        return String.format("%.3f %s", score, unit);
+    }
+}
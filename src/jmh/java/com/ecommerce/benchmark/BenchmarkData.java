@@ -0,0 +1,55 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.repository.CategoryRepository;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seeds benchmark datasets with plain JDBC batches, which keeps large catalogs quick to load on H2 and PostgreSQL.
+ */
+final class BenchmarkData {
+    
+    private static final String[] ADJECTIVES = {
+            "Wireless", "Compact", "Portable", "Smart", "Classic", "Premium", "Ergonomic", "Rugged"};
+    private static final String[] MATERIALS = {
+            "Steel", "Cotton", "Leather", "Bamboo", "Carbon", "Glass", "Oak", "Wool", "Ceramic", "Nylon"};
+    private static final String[] NOUNS = {
+            "Headphones", "Keyboard", "Backpack", "Lamp", "Jacket", "Speaker", "Kettle", "Chair", "Watch", "Mouse"};
+    private static final int BATCH_SIZE = 1_000;
+    
+    private BenchmarkData() {
+    }
+    
+    /**
+     * Inserts {@code count} active products into the first category and returns their ids in insertion order.
+     * "Wireless" is in 1/8 of the names and "Titanium" in 1/997, for common and rare search terms.
+     */
+    static List<Long> seedProducts(ConfigurableApplicationContext context, int count, int stock) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Long categoryId = context.getBean(CategoryRepository.class).findAll().get(0).getId();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            String name = ADJECTIVES[i % ADJECTIVES.length] + " "
+                    + (i % 997 == 0 ? "Titanium" : MATERIALS[(i / 8) % MATERIALS.length]) + " "
+                    + NOUNS[(i / 80) % NOUNS.length] + " " + i;
+            batch.add(new Object[]{"Bench " + name, "Catalog item " + i + " for everyday use",
+                    BigDecimal.valueOf(500 + i % 50_000, 2), stock, categoryId, now, now});
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO products (name, description, price, stock, category_id, is_active, created_at, updated_at)
+                        VALUES (?, ?, ?, ?, ?, true, ?, ?)
+                        """, batch);
+                batch.clear();
+            }
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE name LIKE 'Bench %' ORDER BY id", Long.class);
+    }
+}
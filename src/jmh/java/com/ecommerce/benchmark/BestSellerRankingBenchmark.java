@@ -0,0 +1,94 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.dto.BestSeller;
+import com.ecommerce.service.BestSellerRanking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of the best-seller ranking behind {@code /api/products/best-sellers}: recording a delivered
+ * line, reading the top 10 all-time and for the last 24 hours, and the periodic merge of the hourly buckets.
+ * The ranking is filled with a week of deliveries over {@code products} ids with a skewed (roughly Zipf)
+ * popularity; no database involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BestSellerRankingBenchmark {
+    
+    private static final int DELIVERIES = 1_000_000;
+    private static final int HOURS = 24 * 7;
+    
+    @Param({"10000", "1000000"})
+    public int products;
+    
+    private BestSellerRanking ranking;
+    private SplittableRandom random;
+    private long currentHour;
+    private boolean nextHour;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        ranking = new BestSellerRanking(1000);
+        random = new SplittableRandom(42);
+        currentHour = System.currentTimeMillis() / 3_600_000;
+        for (int i = 0; i < DELIVERIES; i++) {
+            ranking.record(nextProduct(), 1 + random.nextInt(3), currentHour - (long) i * HOURS / DELIVERIES);
+        }
+        ranking.refreshWindows(currentHour);
+    }
+    
+    @Benchmark
+    public void record() {
+        ranking.record(nextProduct(), 1, currentHour);
+    }
+    
+    @Benchmark
+    public List<BestSeller> topAllTime() {
+        return ranking.top(BestSellerRanking.Window.ALL, 10);
+    }
+    
+    @Benchmark
+    public List<BestSeller> topLast24h() {
+        return ranking.top(BestSellerRanking.Window.LAST_24H, 10);
+    }
+    
+    // Within the hour: merges the current bucket into the closed-hour totals, as after any recorded delivery
+    @Benchmark
+    public List<BestSeller> refreshWindows() {
+        ranking.record(nextProduct(), 1, currentHour);
+        ranking.refreshWindows(currentHour);
+        return ranking.top(BestSellerRanking.Window.LAST_7D, 10);
+    }
+    
+    // On the hour: merges every hourly bucket of the windows again (alternating hours keeps the data in place)
+    @Benchmark
+    public List<BestSeller> refreshWindowsNewHour() {
+        nextHour = !nextHour;
+        ranking.refreshWindows(nextHour ? currentHour + 1 : currentHour);
+        return ranking.top(BestSellerRanking.Window.LAST_7D, 10);
+    }
+    
+    // Low ids are far more popular: P(id < x) grows with the square root of x
+    private long nextProduct() {
+        double u = random.nextDouble();
+        return 1 + (long) (u * u * products);
+    }
+}
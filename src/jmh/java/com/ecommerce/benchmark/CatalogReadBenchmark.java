@@ -0,0 +1,89 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.dto.ProductSummary;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storefront reads through {@code ProductService}: keyword search (LIKE on H2, full-text on PostgreSQL) and
+ * {@code findAllActive} pages near the start and in the middle of the catalog, with the page cache on or off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatalogReadBenchmark {
+    
+    private static final int PAGE_SIZE = 20;
+    private static final int BROWSED_PAGES = 50;
+    
+    @Param({"10000", "100000"})
+    public int catalogSize;
+    
+    @Param({"true", "false"})
+    public boolean pageCache;
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private int browsedPage;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = pageCache
+                ? BenchmarkApplication.start()
+                : BenchmarkApplication.start("catalog.cache.product-pages.maximum-size=0");
+        productService = context.getBean(ProductService.class);
+        BenchmarkData.seedProducts(context, catalogSize, 100);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    // Only search varies by keyword, so the listing benchmarks are not repeated per keyword
+    @State(Scope.Benchmark)
+    public static class Query {
+        
+        // A common and a rare word in the seeded names
+        @Param({"Wireless", "Titanium"})
+        public String keyword;
+    }
+    
+    @Benchmark
+    public Page<ProductSummary> search(Query query) {
+        return productService.search(query.keyword, PageRequest.of(0, PAGE_SIZE));
+    }
+    
+    // Browsing traffic concentrates on the first pages of a listing
+    @Benchmark
+    public Page<ProductSummary> browse() {
+        browsedPage = (browsedPage + 1) % BROWSED_PAGES;
+        return productService.findAllActive(PageRequest.of(browsedPage, PAGE_SIZE, Sort.by("id")));
+    }
+    
+    @Benchmark
+    public Page<ProductSummary> deepPage() {
+        return productService.findAllActive(PageRequest.of(catalogSize / PAGE_SIZE / 2, PAGE_SIZE, Sort.by("id")));
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of {@code OrderService.createOrder} by number of distinct products in the cart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CheckoutBenchmark {
+    
+    @Param({"1", "5", "20"})
+    public int cartSize;
+    
+    @Param({"10000"})
+    public int catalogSize;
+    
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long userId;
+    private List<Long> productIds;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        orderService = context.getBean(OrderService.class);
+        userId = context.getBean(UserRepository.class).findAll().get(0).getId();
+        productIds = BenchmarkData.seedProducts(context, catalogSize, Integer.MAX_VALUE / 2);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Order createOrder() {
+        Order order = Order.builder()
+                .user(User.builder().id(userId).build())
+                .shippingAddress("1 Benchmark Way")
+                .build();
+        // Consecutive carts walk the catalog so row locks and cached rows do not repeat from one order to the next
+        for (int i = 0; i < cartSize; i++) {
+            next = (next + 1) % productIds.size();
+            order.getOrderItems().add(OrderItem.builder()
+                    .product(Product.builder().id(productIds.get(next)).build())
+                    .quantity(1)
+                    .build());
+        }
+        return orderService.createOrder(order);
+    }
+}
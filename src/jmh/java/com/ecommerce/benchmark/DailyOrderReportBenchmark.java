@@ -0,0 +1,170 @@
+package com.ecommerce.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the daily order report over the last {@code days} days of a large order history: the previous
+ * {@code GROUP BY DATE(created_at)} over every order in the window against the {@code daily_order_stats}
+ * rollup rows plus today's orders, as {@code DailyOrderReport} reads them. Needs PostgreSQL, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="DailyOrderReport -jvmArgsAppend -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/bench"
+ * </pre>
+ * The database is migrated with Flyway and filled with {@code orders} orders spread over two years on first use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DailyOrderReportBenchmark {
+
+    private static final int HISTORY_DAYS = 730;
+
+    private static final String GROUP_BY_REPORT = """
+        SELECT DATE(o.created_at) as order_date, COUNT(*), SUM(o.total_amount)
+        FROM orders o
+        WHERE o.created_at >= ?
+        GROUP BY DATE(o.created_at)
+        ORDER BY order_date DESC
+        """;
+    private static final String TODAY_REPORT = """
+        SELECT CAST(o.created_at AS DATE) as order_date, COUNT(*), SUM(o.total_amount)
+        FROM orders o
+        WHERE o.created_at >= ? AND o.created_at < ?
+        GROUP BY CAST(o.created_at AS DATE)
+        """;
+    private static final String CLOSED_DAYS = """
+        SELECT stat_date, order_count, total_revenue FROM daily_order_stats
+        WHERE stat_date >= ? AND stat_date < ?
+        ORDER BY stat_date DESC
+        """;
+
+    @Param({"10000000"})
+    public int orders;
+
+    @Param({"7", "90", "365"})
+    public int days;
+
+    private Connection connection;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("benchmark.postgres.url");
+        if (url == null) {
+            throw new IllegalStateException("Set -Dbenchmark.postgres.url to a PostgreSQL database for this benchmark");
+        }
+        String username = System.getProperty("benchmark.postgres.username", "postgres");
+        String password = System.getProperty("benchmark.postgres.password", "password");
+        Flyway.configure().dataSource(url, username, password).locations("classpath:db/migration").load().migrate();
+        connection = DriverManager.getConnection(url, username, password);
+        today = LocalDate.now();
+        seedOrders();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void groupBy(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(GROUP_BY_REPORT)) {
+            statement.setTimestamp(1, Timestamp.valueOf(today.minusDays(days).atStartOfDay()));
+            consume(statement, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void rollup(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(TODAY_REPORT)) {
+            statement.setTimestamp(1, Timestamp.valueOf(today.atStartOfDay()));
+            statement.setTimestamp(2, Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+            consume(statement, blackhole);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(CLOSED_DAYS)) {
+            statement.setDate(1, Date.valueOf(today.minusDays(days)));
+            statement.setDate(2, Date.valueOf(today));
+            consume(statement, blackhole);
+        }
+    }
+
+    private void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                blackhole.consume(rows.getDate(1));
+                blackhole.consume(rows.getLong(2));
+                blackhole.consume(rows.getBigDecimal(3));
+            }
+        }
+    }
+
+    private void seedOrders() throws SQLException {
+        long missing;
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM orders")) {
+            count.next();
+            missing = orders - count.getLong(1);
+        }
+        if (missing <= 0) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                INSERT INTO users (username, email, password, first_name, last_name)
+                VALUES ('report-bench', 'report-bench@example.com', 'x', 'Report', 'Bench')
+                ON CONFLICT (username) DO NOTHING
+                """);
+        }
+        // Evenly spread over the last two years, today included, at any time of day
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO orders (order_number, user_id, total_amount, status, created_at, updated_at)
+                SELECT 'RPT-' || g || '-' || md5(random()::text),
+                       (SELECT id FROM users WHERE username = 'report-bench'),
+                       (10 + g % 490)::numeric(10, 2), 'DELIVERED', t, t
+                FROM generate_series(1, ?) g,
+                     LATERAL (SELECT CURRENT_DATE - (g % ?) * INTERVAL '1 day' + (g % 86400) * INTERVAL '1 second' AS t) c
+                """);
+             Statement statement = connection.createStatement()) {
+            insert.setLong(1, missing);
+            insert.setInt(2, HISTORY_DAYS);
+            insert.executeUpdate();
+            // What the backfill / day-closing job writes for every day before today
+            statement.execute("DELETE FROM daily_order_stats");
+            statement.execute("""
+                INSERT INTO daily_order_stats (stat_date, order_count, total_revenue)
+                SELECT CAST(created_at AS DATE), COUNT(*), SUM(total_amount)
+                FROM orders WHERE created_at < CURRENT_DATE
+                GROUP BY CAST(created_at AS DATE)
+                """);
+            statement.execute("ANALYZE orders");
+            statement.execute("ANALYZE daily_order_stats");
+        }
+    }
+}
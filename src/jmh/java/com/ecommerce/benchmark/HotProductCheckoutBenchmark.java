@@ -0,0 +1,84 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second when every checkout buys the same product, with and without the inventory ledger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class HotProductCheckoutBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean ledgerEnabled;
+    
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long userId;
+    private Long productId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("inventory.ledger.enabled=" + ledgerEnabled);
+        orderService = context.getBean(OrderService.class);
+        userId = context.getBean(UserRepository.class).findAll().get(0).getId();
+        
+        Category category = context.getBean(CategoryRepository.class).findAll().get(0);
+        productId = context.getBean(ProductRepository.class).save(Product.builder()
+                .name("Flash Sale SKU")
+                .price(new BigDecimal("19.99"))
+                .stock(Integer.MAX_VALUE / 2)
+                .category(category)
+                .isActive(true)
+                .build()).getId();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Order checkout() {
+        Order order = Order.builder()
+                .user(User.builder().id(userId).build())
+                .shippingAddress("1 Benchmark Way")
+                .build();
+        order.getOrderItems().add(OrderItem.builder()
+                .product(Product.builder().id(productId).build())
+                .quantity(1)
+                .build());
+        return orderService.createOrder(order);
+    }
+}
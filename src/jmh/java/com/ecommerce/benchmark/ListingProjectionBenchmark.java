@@ -0,0 +1,177 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.dto.OrderDetails;
+import com.ecommerce.model.dto.OrderLine;
+import com.ecommerce.model.dto.OrderSummary;
+import com.ecommerce.model.dto.ProductSummary;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the listing and order detail responses (query + JSON serialization) when they are built from
+ * managed entities versus read straight into DTO projections. Run with {@code -prof gc} for allocation rates:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ListingProjection -prof gc"
+ * </pre>
+ * The entity variant maps entities to the same response records, so both produce identical JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ListingProjectionBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int ORDERS = 2_000;
+    private static final int LINES_PER_ORDER = 5;
+
+    @Param({"entity", "projection"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private ObjectMapper objectMapper;
+    private ProductRepository productRepository;
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+    private Pageable productPage;
+    private Pageable orderPage;
+    private Long orderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        objectMapper = context.getBean(ObjectMapper.class);
+        productRepository = context.getBean(ProductRepository.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderItemRepository = context.getBean(OrderItemRepository.class);
+        seed();
+
+        // A page from the middle of the catalog, 20 rows as the storefront requests them
+        productPage = PageRequest.of(PRODUCTS / 40, 20, Sort.by("id"));
+        orderPage = PageRequest.of(ORDERS / 40, 20, Sort.by("id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] productPage() {
+        return readOnly.execute(status -> json(mode.equals("entity")
+                ? productRepository.findByIsActiveTrue(productPage).map(ProductSummary::from)
+                : productRepository.findActiveSummaries(productPage)));
+    }
+
+    @Benchmark
+    public byte[] orderPage() {
+        return readOnly.execute(status -> json(mode.equals("entity")
+                ? orderRepository.findAll(orderPage).map(OrderSummary::from)
+                : orderRepository.findSummaries(orderPage)));
+    }
+
+    @Benchmark
+    public byte[] orderDetails() {
+        return readOnly.execute(status -> {
+            if (mode.equals("entity")) {
+                Order order = orderRepository.findByIdWithUserAndItems(orderId).orElseThrow();
+                List<OrderLine> lines = order.getOrderItems().stream()
+                        .map(item -> new OrderLine(item.getProduct().getId(), item.getProduct().getName(),
+                                item.getQuantity(), item.getPrice(), item.getSubtotal()))
+                        .toList();
+                return json(new OrderDetails(order.getId(), order.getOrderNumber(), order.getUser().getId(),
+                        order.getUser().getUsername(), order.getTotalAmount(), order.getStatus(),
+                        order.getShippingAddress(), order.getCreatedAt(), lines));
+            }
+            OrderDetails order = orderRepository.findDetailsById(orderId).orElseThrow();
+            return json(order.withItems(orderItemRepository.findLinesByOrderId(orderId)));
+        });
+    }
+
+    private byte[] json(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value instanceof Page<?> page ? page.getContent() : value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void seed() {
+        Category category = context.getBean(CategoryRepository.class).findAll().get(0);
+        User user = context.getBean(UserRepository.class).findAll().get(0);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .name("Benchmark Product " + i)
+                    .description("Description of benchmark product " + i)
+                    .price(new BigDecimal("19.99"))
+                    .stock(100)
+                    .category(category)
+                    .isActive(true)
+                    .build());
+        }
+        products = productRepository.saveAll(products);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .orderNumber("BENCH-" + i)
+                    .user(user)
+                    .status(OrderStatus.PENDING)
+                    .shippingAddress("1 Benchmark Way")
+                    .build();
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                Product product = products.get((i * LINES_PER_ORDER + line) % PRODUCTS);
+                OrderItem item = OrderItem.builder().order(order).product(product).quantity(1)
+                        .price(product.getPrice()).build();
+                item.calculateSubtotal();
+                order.getOrderItems().add(item);
+            }
+            order.calculateTotal();
+            orders.add(order);
+        }
+        orderId = orderRepository.saveAll(orders).get(ORDERS / 2).getId();
+    }
+}
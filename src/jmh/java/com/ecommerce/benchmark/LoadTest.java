@@ -0,0 +1,231 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load test of the storefront API: {@code clients} concurrent users each send their next request
+ * as soon as the previous one completes. Compares request execution models, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="clients=400"
+ * mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="clients=400 spring.profiles.active=virtual-threads"
+ * </pre>
+ * Arguments other than {@code clients}, {@code seconds} and {@code warmup} are passed to the application as
+ * properties. The virtual-threads profile needs a Java 21 runtime. Prints throughput, latency percentiles of
+ * successful requests and the number of requests shed with 503.
+ */
+public final class LoadTest {
+    
+    private static final int PRODUCTS = 10_000;
+    private static final int ORDERS = 2_000;
+    
+    private LoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int clients = 200;
+        int seconds = 30;
+        int warmup = 10;
+        List<String> properties = new ArrayList<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            switch (option[0]) {
+                case "clients" -> clients = Integer.parseInt(option[1]);
+                case "seconds" -> seconds = Integer.parseInt(option[1]);
+                case "warmup" -> warmup = Integer.parseInt(option[1]);
+                default -> properties.add(arg);
+            }
+        }
+        if (properties.contains("spring.profiles.active=virtual-threads") && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("The virtual-threads profile needs Java 21, running " + Runtime.version());
+        }
+        
+        ConfigurableApplicationContext context = BenchmarkApplication.startServer(properties.toArray(String[]::new));
+        try {
+            Workload workload = new Workload(context);
+            System.out.printf("Warming up for %ds with %d clients%n", warmup, clients);
+            run(workload, clients, warmup);
+            Result result = run(workload, clients, seconds);
+            System.out.printf("clients=%d %s%n", clients, String.join(" ", properties));
+            System.out.println(result);
+        } finally {
+            context.close();
+        }
+    }
+    
+    private static Result run(Workload workload, int clients, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    Result result = new Result();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        result.record(workload.send(), System.nanoTime() - start);
+                    }
+                    return result;
+                }));
+            }
+            Result total = new Result();
+            for (Future<Result> future : futures) {
+                total.merge(future.get());
+            }
+            total.seconds = seconds;
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    // Mostly catalog and order reads with some checkouts, against seeded products and orders
+    private static final class Workload {
+        
+        private final String base;
+        private final List<Long> productIds;
+        private final List<Long> orderIds = new ArrayList<>();
+        private final Long userId;
+        
+        Workload(ConfigurableApplicationContext context) {
+            base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            productIds = BenchmarkData.seedProducts(context, PRODUCTS, Integer.MAX_VALUE / 2);
+            userId = context.getBean(UserRepository.class).findAll().get(0).getId();
+            OrderService orderService = context.getBean(OrderService.class);
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = Order.builder()
+                        .user(User.builder().id(userId).build())
+                        .shippingAddress("1 Load Test Way")
+                        .build();
+                order.getOrderItems().add(OrderItem.builder()
+                        .product(Product.builder().id(productIds.get(i % PRODUCTS)).build())
+                        .quantity(1)
+                        .build());
+                orderIds.add(orderService.createOrder(order).getId());
+            }
+        }
+        
+        // Returns the status code, or -1 on connection errors and timeouts
+        int send() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int pick = random.nextInt(100);
+            try {
+                if (pick < 40) {
+                    return get("/api/products?page=" + random.nextInt(50) + "&size=20");
+                } else if (pick < 60) {
+                    return get("/api/products/" + productIds.get(random.nextInt(PRODUCTS)));
+                } else if (pick < 80) {
+                    return get("/api/orders?page=" + random.nextInt(50) + "&size=20");
+                } else if (pick < 90) {
+                    return get("/api/orders/" + orderIds.get(random.nextInt(ORDERS)));
+                }
+                return post("/api/orders", """
+                        {"user":{"id":%d},"shippingAddress":"1 Load Test Way","orderItems":[{"product":{"id":%d},"quantity":1}]}
+                        """.formatted(userId, productIds.get(random.nextInt(PRODUCTS))));
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        
+        private int get(String path) throws IOException {
+            return exchange(open(path));
+        }
+        
+        private int post(String path, String json) throws IOException {
+            HttpURLConnection connection = open(path);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            try (OutputStream body = connection.getOutputStream()) {
+                body.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+            return exchange(connection);
+        }
+        
+        private HttpURLConnection open(String path) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(60_000);
+            return connection;
+        }
+        
+        // Reads the body to the end so the keep-alive connection goes back to the JDK's connection cache
+        private static int exchange(HttpURLConnection connection) throws IOException {
+            int status = connection.getResponseCode();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (body != null) {
+                    body.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            return status;
+        }
+    }
+    
+    private static final class Result {
+        
+        private long[] latencies = new long[1 << 12];
+        private int successes;
+        private int shed;
+        private int errors;
+        private int seconds;
+        
+        void record(int status, long nanos) {
+            if (status == 503) {
+                shed++;
+            } else if (status < 200 || status >= 300) {
+                errors++;
+            } else {
+                if (successes == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, successes * 2);
+                }
+                latencies[successes++] = nanos;
+            }
+        }
+        
+        void merge(Result other) {
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length, successes + other.successes));
+            System.arraycopy(other.latencies, 0, latencies, successes, other.successes);
+            successes += other.successes;
+            shed += other.shed;
+            errors += other.errors;
+        }
+        
+        private double percentileMillis(double percentile) {
+            if (successes == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(latencies, successes);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(percentile / 100 * successes) - 1] / 1e6;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "throughput=%.1f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms ok=%d shed503=%d errors=%d",
+                    (double) successes / seconds, percentileMillis(50), percentileMillis(99), percentileMillis(100),
+                    successes, shed, errors);
+        }
+    }
+}
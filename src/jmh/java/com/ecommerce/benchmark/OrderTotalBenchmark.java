@@ -0,0 +1,55 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of {@code Order.calculateTotal} by number of order lines; no database involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTotalBenchmark {
+    
+    @Param({"1", "10", "100"})
+    public int lines;
+    
+    private Order order;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        order = Order.builder().build();
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = OrderItem.builder()
+                    .price(BigDecimal.valueOf(199 + i * 37L, 2))
+                    .quantity(1 + i % 3)
+                    .build();
+            item.calculateSubtotal();
+            order.getOrderItems().add(item);
+        }
+    }
+    
+    @Benchmark
+    public BigDecimal calculateTotal() {
+        order.calculateTotal();
+        return order.getTotalAmount();
+    }
+}
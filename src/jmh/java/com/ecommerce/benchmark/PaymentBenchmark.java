@@ -0,0 +1,97 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code PaymentService.processPayment} over a pool of pending payments created through the services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentBenchmark {
+    
+    @Param({"5000"})
+    public int payments;
+    
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private JdbcTemplate jdbcTemplate;
+    private List<Long> paymentIds;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        paymentService = context.getBean(PaymentService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        OrderService orderService = context.getBean(OrderService.class);
+        Long userId = context.getBean(UserRepository.class).findAll().get(0).getId();
+        List<Long> productIds = BenchmarkData.seedProducts(context, 1_000, Integer.MAX_VALUE / 2);
+        
+        paymentIds = new ArrayList<>(payments);
+        for (int i = 0; i < payments; i++) {
+            Order order = Order.builder()
+                    .user(User.builder().id(userId).build())
+                    .shippingAddress("1 Benchmark Way")
+                    .build();
+            order.getOrderItems().add(OrderItem.builder()
+                    .product(Product.builder().id(productIds.get(i % productIds.size())).build())
+                    .quantity(1)
+                    .build());
+            Long orderId = orderService.createOrder(order).getId();
+            paymentIds.add(paymentService.createPayment(Payment.builder()
+                    .order(Order.builder().id(orderId).build())
+                    .paymentMethod("CARD")
+                    .build()).getId());
+        }
+    }
+    
+    // Puts the pool back to its pre-processing state so every call does the full status transition
+    @Setup(Level.Iteration)
+    public void resetPayments() {
+        jdbcTemplate.update("UPDATE payments SET status = 'PENDING', payment_date = NULL");
+        jdbcTemplate.update("UPDATE orders SET status = 'CONFIRMED'");
+        next = 0;
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Payment processPayment() {
+        Long paymentId = paymentIds.get(next);
+        next = (next + 1) % paymentIds.size();
+        return paymentService.processPayment(paymentId);
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.repository.CategoryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading {@code rows} new products over HTTP: one {@code POST /api/products} per product, as a catalog was
+ * onboarded before, against a single streamed {@code POST /api/products/import} body in CSV or NDJSON. The client
+ * generates the body while sending it, so {@code -prof gc} allocations are the server's work plus a small constant.
+ * Runs on H2 by default; the PostgreSQL numbers include its index maintenance:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProductImport -prof gc -jvmArgsAppend -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/bench"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ProductImportBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"perRow", "csv", "ndjson"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private String base;
+    private long categoryId;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.startServer();
+        base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        categoryId = context.getBean(CategoryRepository.class).findAll().get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Every invocation loads skus that do not exist yet, so both paths insert rather than update
+    @Benchmark
+    public int load() throws IOException {
+        String prefix = "BENCH-" + (run++) + "-";
+        if (mode.equals("perRow")) {
+            int status = 0;
+            for (int i = 0; i < rows; i++) {
+                String product = """
+                        {"sku":"%s%d","name":"Imported product %d","description":"Supplier item %d, boxed",\
+                        "price":19.99,"stock":100,"category":{"id":%d},"imageUrl":"https://cdn.example.com/%d.jpg"}\
+                        """.formatted(prefix, i, i, i, categoryId, i);
+                status = post("/api/products", "application/json", out -> out.write(product));
+            }
+            return status;
+        }
+        if (mode.equals("csv")) {
+            return post("/api/products/import", "text/csv", out -> {
+                out.write("sku,name,description,price,stock,categoryId,imageUrl\n");
+                for (int i = 0; i < rows; i++) {
+                    out.write("%s%d,Imported product %d,\"Supplier item %d, boxed\",19.99,100,%d,%s\n"
+                            .formatted(prefix, i, i, i, categoryId, "https://cdn.example.com/" + i + ".jpg"));
+                }
+            });
+        }
+        return post("/api/products/import", "application/x-ndjson", out -> {
+            for (int i = 0; i < rows; i++) {
+                out.write("""
+                        {"sku":"%s%d","name":"Imported product %d","description":"Supplier item %d, boxed",\
+                        "price":19.99,"stock":100,"categoryId":%d,"imageUrl":"https://cdn.example.com/%d.jpg"}
+                        """.formatted(prefix, i, i, i, categoryId, i));
+            }
+        });
+    }
+
+    private interface Body {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    private int post(String path, String contentType, Body body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", contentType);
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(64 * 1024);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            body.writeTo(out);
+        }
+        int status = connection.getResponseCode();
+        if (status != 200) {
+            throw new IllegalStateException("POST " + path + " returned " + status);
+        }
+        try (InputStream response = connection.getInputStream()) {
+            response.transferTo(OutputStream.nullOutputStream());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page (20 rows + total count) of a product search on a large catalog: the old {@code LIKE '%keyword%'}
+ * query against the full-text {@code search_vector} query. Needs PostgreSQL, e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProductSearch -jvmArgsAppend -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/search_bench"
+ * </pre>
+ * The database is migrated with Flyway and filled with {@code catalogSize} products on first use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final String LIKE_PAGE = """
+        SELECT * FROM products p WHERE p.is_active = true AND p.name LIKE ? ORDER BY p.id LIMIT 20
+        """;
+    private static final String LIKE_COUNT = """
+        SELECT COUNT(*) FROM products p WHERE p.is_active = true AND p.name LIKE ?
+        """;
+    private static final String FULL_TEXT_PAGE = """
+        SELECT p.* FROM products p, to_tsquery('english', ?) q
+        WHERE p.is_active = true AND p.search_vector @@ q
+        ORDER BY ts_rank(p.search_vector, q) DESC, p.id LIMIT 20
+        """;
+    private static final String FULL_TEXT_COUNT = """
+        SELECT COUNT(*) FROM products p WHERE p.is_active = true AND p.search_vector @@ to_tsquery('english', ?)
+        """;
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    // A common word, a rare word and a prefix of an uncommon word
+    @Param({"wireless", "titanium", "ergo"})
+    public String keyword;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("benchmark.postgres.url");
+        if (url == null) {
+            throw new IllegalStateException("Set -Dbenchmark.postgres.url to a PostgreSQL database for this benchmark");
+        }
+        String username = System.getProperty("benchmark.postgres.username", "postgres");
+        String password = System.getProperty("benchmark.postgres.password", "password");
+        Flyway.configure().dataSource(url, username, password).locations("classpath:db/migration").load().migrate();
+        connection = DriverManager.getConnection(url, username, password);
+        seedCatalog();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void like(Blackhole blackhole) throws SQLException {
+        String pattern = "%" + keyword + "%";
+        query(LIKE_PAGE, pattern, blackhole);
+        query(LIKE_COUNT, pattern, blackhole);
+    }
+
+    @Benchmark
+    public void fullText(Blackhole blackhole) throws SQLException {
+        String tsQuery = keyword + ":*";
+        query(FULL_TEXT_PAGE, tsQuery, blackhole);
+        query(FULL_TEXT_COUNT, tsQuery, blackhole);
+    }
+
+    private void query(String sql, String parameter, Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, parameter);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    blackhole.consume(rows.getLong(1));
+                }
+            }
+        }
+    }
+
+    private void seedCatalog() throws SQLException {
+        long missing;
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM products")) {
+            count.next();
+            missing = catalogSize - count.getLong(1);
+        }
+        if (missing <= 0) {
+            return;
+        }
+        // Adjective + material + noun names: "wireless" is in 1/8 of the rows, "titanium" in 1/997
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO products (name, description, price, stock, category_id, is_active)
+                SELECT initcap((ARRAY['wireless','compact','portable','smart','classic','premium','ergonomic','rugged'])[1 + g % 8])
+                       || ' ' || CASE WHEN g % 997 = 0 THEN 'Titanium'
+                                      ELSE initcap((ARRAY['steel','cotton','leather','bamboo','carbon','glass','oak','wool',
+                                                          'ceramic','nylon','silicone','copper'])[1 + (g / 8) % 12]) END
+                       || ' ' || initcap((ARRAY['headphones','keyboard','backpack','lamp','jacket','speaker','kettle','chair',
+                                                'watch','notebook','blender','mouse','router','camera','desk','bottle'])[1 + (g / 96) % 16])
+                       || ' ' || g,
+                       'Catalog item ' || g || ' for everyday use, shipped in recyclable packaging',
+                       (5 + g % 500)::numeric(10, 2), g % 200, (SELECT MIN(id) FROM categories), g % 50 <> 0
+                FROM generate_series(1, ?) g
+                """);
+             Statement statement = connection.createStatement()) {
+            insert.setLong(1, missing);
+            insert.executeUpdate();
+            statement.execute("ANALYZE products");
+        }
+    }
+}
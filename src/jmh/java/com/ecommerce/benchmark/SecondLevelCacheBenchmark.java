@@ -0,0 +1,160 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.config.QueryProfiler;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order detail reads from entities, with the second-level cache on or off: the order and its lines in one
+ * query, then the customer and the category of every line, which come from the cache when it is on. Product
+ * rows are not cached, so their lazy loads remain in both variants. Prints the statements per read at the end
+ * of each trial:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="SecondLevelCache"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+
+    private static final int CATEGORIES = 20;
+    private static final int USERS = 200;
+    private static final int PRODUCTS = 2_000;
+    private static final int ORDERS = 2_000;
+    private static final int LINES_PER_ORDER = 5;
+    private static final int PROFILED_READS = 1_000;
+
+    @Param({"true", "false"})
+    public boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private OrderRepository orderRepository;
+    private List<Long> orderIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("persistence.second-level-cache.enabled=" + secondLevelCache);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderIds = seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        QueryProfiler profiler = context.getBean(QueryProfiler.class);
+        try (QueryProfiler.Profile profile = profiler.start()) {
+            for (int i = 0; i < PROFILED_READS; i++) {
+                orderDetails();
+            }
+            System.out.printf("%nsecondLevelCache=%s: %.2f statements per order read%n", secondLevelCache,
+                    (double) profile.statements() / PROFILED_READS);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public String orderDetails() {
+        next = (next + 1) % orderIds.size();
+        Long orderId = orderIds.get(next);
+        return readOnly.execute(status -> {
+            Order order = orderRepository.findByIdWithOrderItems(orderId).orElseThrow();
+            StringBuilder details = new StringBuilder(order.getOrderNumber())
+                    .append(' ').append(order.getUser().getUsername());
+            for (OrderItem item : order.getOrderItems()) {
+                details.append(' ').append(item.getProduct().getName())
+                        .append(" (").append(item.getProduct().getCategory().getName()).append(')');
+            }
+            return details.toString();
+        });
+    }
+
+    private List<Long> seed() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(Category.builder().name("Benchmark Category " + i).isActive(true).build());
+        }
+        categories = context.getBean(CategoryRepository.class).saveAll(categories);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder()
+                    .username("bench" + i)
+                    .email("bench" + i + "@example.com")
+                    .password("password")
+                    .firstName("Bench")
+                    .lastName("User " + i)
+                    .isActive(true)
+                    .isVerified(true)
+                    .build());
+        }
+        users = context.getBean(UserRepository.class).saveAll(users);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .name("Benchmark Product " + i)
+                    .price(new BigDecimal("19.99"))
+                    .stock(100)
+                    .category(categories.get(i % CATEGORIES))
+                    .isActive(true)
+                    .build());
+        }
+        products = context.getBean(ProductRepository.class).saveAll(products);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .orderNumber("BENCH-" + i)
+                    .user(users.get(i % USERS))
+                    .status(OrderStatus.PENDING)
+                    .shippingAddress("1 Benchmark Way")
+                    .build();
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                Product product = products.get((i * 7 + line * 31) % PRODUCTS);
+                OrderItem item = OrderItem.builder().order(order).product(product).quantity(1)
+                        .price(product.getPrice()).build();
+                item.calculateSubtotal();
+                order.getOrderItems().add(item);
+            }
+            order.calculateTotal();
+            orders.add(order);
+        }
+        return orderRepository.saveAll(orders).stream().map(Order::getId).toList();
+    }
+}
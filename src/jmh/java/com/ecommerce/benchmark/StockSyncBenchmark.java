@@ -0,0 +1,78 @@
+package com.ecommerce.benchmark;
+
+import com.ecommerce.model.dto.StockAdjustment;
+import com.ecommerce.service.ProductService;
+import com.ecommerce.service.StockSync;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A warehouse push of {@code products} absolute stock levels: one {@code ProductService.updateStock} call per
+ * product, as before, against one {@code StockSync.apply} with the whole list. Runs on H2 by default, or e.g.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="StockSync -jvmArgsAppend -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/bench"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StockSyncBenchmark {
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"perProduct", "sync"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private StockSync stockSync;
+    private List<Long> productIds;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        stockSync = context.getBean(StockSync.class);
+        productIds = BenchmarkData.seedProducts(context, products, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int push() {
+        List<StockAdjustment> levels = new ArrayList<>(products);
+        for (Long productId : productIds) {
+            levels.add(new StockAdjustment(productId, random.nextInt(1_000), null));
+        }
+        if (mode.equals("perProduct")) {
+            levels.forEach(level -> productService.updateStock(level.productId(), level.stock()));
+            return levels.size();
+        }
+        return stockSync.apply(levels).applied();
+    }
+}
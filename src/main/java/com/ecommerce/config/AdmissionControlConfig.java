@@ -0,0 +1,39 @@
+package com.ecommerce.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true")
+public class AdmissionControlConfig implements WebMvcConfigurer {
+    
+    private final Environment environment;
+    
+    @Value("${admission.max-concurrent:20}")
+    private int maxConcurrent;
+    
+    @Value("${admission.endpoint-limit:10}")
+    private int endpointLimit;
+    
+    @Value("${admission.acquire-timeout:100ms}")
+    private Duration acquireTimeout;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Per-endpoint overrides are keyed by controller and method, e.g. admission.endpoint-limits.OrderController.createOrder=4
+        registry.addInterceptor(new AdmissionLimitInterceptor(maxConcurrent,
+                        handler -> environment.getProperty("admission.endpoint-limits."
+                                + handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName(),
+                                Integer.class, endpointLimit),
+                        acquireTimeout.toNanos()))
+                .addPathPatterns("/api/**");
+    }
+}
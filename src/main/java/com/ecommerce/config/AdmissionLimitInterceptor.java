@@ -0,0 +1,124 @@
+package com.ecommerce.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caps concurrent requests per controller method and in total before they reach the services, and rejects the
+ * excess with 503 after a short wait instead of letting it queue on the connection pool until
+ * {@code connection-timeout}. Needed once requests run on virtual threads, which no longer bound concurrency.
+ */
+public class AdmissionLimitInterceptor implements AsyncHandlerInterceptor {
+    
+    private static final String PERMIT = AdmissionLimitInterceptor.class.getName() + ".permit";
+    
+    private final Semaphore total;
+    private final ConcurrentMap<Method, Semaphore> endpoints = new ConcurrentHashMap<>();
+    private final ToIntFunction<HandlerMethod> endpointLimit;
+    private final long acquireTimeoutNanos;
+    
+    public AdmissionLimitInterceptor(int maxConcurrent, ToIntFunction<HandlerMethod> endpointLimit,
+                                     long acquireTimeoutNanos) {
+        this.total = new Semaphore(maxConcurrent);
+        this.endpointLimit = endpointLimit;
+        this.acquireTimeoutNanos = acquireTimeoutNanos;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        // An async dispatch (e.g. after a streamed export) runs under the permit of the original request
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Semaphore endpoint = endpoints.computeIfAbsent(handlerMethod.getMethod(),
+                method -> new Semaphore(endpointLimit.applyAsInt(handlerMethod)));
+        
+        // The endpoint permit comes first so one busy endpoint cannot hold every total permit
+        if (!endpoint.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            return reject(response);
+        }
+        if (!total.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            endpoint.release();
+            return reject(response);
+        }
+        request.setAttribute(PERMIT, new Permit(endpoint));
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof Permit permit) {
+            permit.release();
+        }
+    }
+    
+    // Streamed responses keep the permit until the async request ends. A client that disconnects mid-stream
+    // only shows up as an async error, without a dispatch through afterCompletion, so that releases it too
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        if (request.getAttribute(PERMIT) instanceof Permit permit) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    permit.release();
+                }
+                
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    permit.release();
+                }
+                
+                @Override
+                public void onError(AsyncEvent event) {
+                    permit.release();
+                }
+                
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        }
+    }
+    
+    // Released exactly once, by whichever of afterCompletion and the async listener callbacks comes first
+    private final class Permit {
+        
+        private final Semaphore endpoint;
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        Permit(Semaphore endpoint) {
+            this.endpoint = endpoint;
+        }
+        
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                endpoint.release();
+                total.release();
+            }
+        }
+    }
+    
+    private static boolean reject(HttpServletResponse response) {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Runs a callback once, just before the response commits, so a filter can add headers that depend on what the
+ * handler did. Filters call {@link #beforeCommit()} themselves after the chain for responses without a body.
+ */
+class BeforeCommitResponse extends HttpServletResponseWrapper {
+    
+    private final Runnable callback;
+    private boolean done;
+    
+    BeforeCommitResponse(HttpServletResponse response, Runnable callback) {
+        super(response);
+        this.callback = callback;
+    }
+    
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        beforeCommit();
+        return super.getOutputStream();
+    }
+    
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        beforeCommit();
+        return super.getWriter();
+    }
+    
+    @Override
+    public void flushBuffer() throws IOException {
+        beforeCommit();
+        super.flushBuffer();
+    }
+    
+    @Override
+    public void sendError(int status) throws IOException {
+        beforeCommit();
+        super.sendError(status);
+    }
+    
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        beforeCommit();
+        super.sendError(status, message);
+    }
+    
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        beforeCommit();
+        super.sendRedirect(location);
+    }
+    
+    void beforeCommit() {
+        if (done || isCommitted()) {
+            return;
+        }
+        done = true;
+        callback.run();
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_PAGES = "productPages";
+    
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${catalog.cache.products.maximum-size:10000}") long productsMaximumSize,
+            @Value("${catalog.cache.products.expire-after-write:10m}") Duration productsExpireAfterWrite,
+            @Value("${catalog.cache.product-pages.maximum-size:1000}") long productPagesMaximumSize,
+            @Value("${catalog.cache.product-pages.expire-after-write:5s}") Duration productPagesExpireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        
+        // Single products are evicted on every write, including stock changes
+        cacheManager.registerCustomCache(PRODUCTS, Caffeine.newBuilder()
+                .maximumSize(productsMaximumSize)
+                .expireAfterWrite(productsExpireAfterWrite)
+                .recordStats()
+                .build());
+        
+        // Listing pages are evicted on catalog writes; their stock values are only bounded by the short TTL
+        cacheManager.registerCustomCache(PRODUCT_PAGES, Caffeine.newBuilder()
+                .maximumSize(productPagesMaximumSize)
+                .expireAfterWrite(productPagesExpireAfterWrite)
+                .recordStats()
+                .build());
+        
+        // Defer evictions to after commit so a concurrent read cannot re-cache the row being changed
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
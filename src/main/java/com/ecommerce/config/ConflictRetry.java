@@ -0,0 +1,114 @@
+package com.ecommerce.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries {@link RetryOnConflict} methods that failed with an optimistic locking conflict or another
+ * {@link ConcurrencyFailureException}, such as a deadlock, up to {@code max-attempts} in total. Between attempts
+ * it sleeps a random time between zero and an exponentially growing backoff capped at {@code max-backoff}, so
+ * that the losers of a race do not collide again. Counts the failures in {@code ecommerce.conflicts}, tagged with
+ * the operation and whether it was retried or gave up; divided by the calls of {@code ecommerce.service} it is the
+ * conflict rate of the operation.
+ * <p>
+ * A retry needs a new transaction, so methods called inside a running one are left to the outermost retry.
+ */
+@Slf4j
+@Aspect
+@Component
+// Outside the transaction advisor, so every attempt runs in a transaction of its own, and inside the service
+// timers, so a call is timed once however many attempts it took
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ConflictRetry {
+    
+    private final MeterRegistry registry;
+    private final Map<String, Counter> retried = new ConcurrentHashMap<>();
+    private final Map<String, Counter> exhausted = new ConcurrentHashMap<>();
+    
+    @Value("${persistence.conflict-retry.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${persistence.conflict-retry.backoff:10ms}")
+    private Duration backoff;
+    
+    @Value("${persistence.conflict-retry.max-backoff:200ms}")
+    private Duration maxBackoff;
+    
+    public ConflictRetry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @FunctionalInterface
+    public interface Attempt<T, E extends Throwable> {
+        T run() throws E;
+    }
+    
+    @Around("@annotation(com.ecommerce.config.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                + joinPoint.getSignature().getName();
+        return execute(operation, joinPoint::proceed);
+    }
+    
+    /**
+     * Runs {@code attempt}, again after every concurrency failure until {@code max-attempts}; the last
+     * conflict is rethrown. {@code attempt} must start and commit its own transaction.
+     */
+    public <T, E extends Throwable> T execute(String operation, Attempt<T, E> attempt) throws E {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return attempt.run();
+        }
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.run();
+            } catch (ConcurrencyFailureException e) {
+                if (attempts >= maxAttempts) {
+                    counter(exhausted, operation, "exhausted").increment();
+                    log.warn("{} still conflicting after {} attempts: {}", operation, attempts, e.getMessage());
+                    throw e;
+                }
+                counter(retried, operation, "retried").increment();
+                log.debug("{} conflicted on attempt {}, retrying: {}", operation, attempts, e.getMessage());
+                if (!sleep(attempts)) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    // Full jitter: uniform in [0, min(backoff * 2^(attempts - 1), max-backoff)]
+    private boolean sleep(int attempts) {
+        long ceiling = Math.min(backoff.toNanos() << Math.min(attempts - 1, 20), maxBackoff.toNanos());
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private Counter counter(Map<String, Counter> counters, String operation, String outcome) {
+        return counters.computeIfAbsent(operation, op -> Counter.builder("ecommerce.conflicts")
+                .description("Concurrency failures, by operation and whether the operation was retried")
+                .tag("operation", op)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
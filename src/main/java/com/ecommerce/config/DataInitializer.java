@@ -5,6 +5,7 @@ import com.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 
@@ -16,7 +17,10 @@ public class DataInitializer implements CommandLineRunner {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     
+    // One read-write transaction, so the existence checks read from the primary rather than a replica that may not
+    // have the rows yet
     @Override
+    @Transactional
     public void run(String... args) throws Exception {
         // Create sample users
         if (userRepository.count() == 0) {
@@ -0,0 +1,29 @@
+package com.ecommerce.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/queries}: statement counts, slow statements and budget violations per controller method.
+ * {@code DELETE} starts the totals over, e.g. before a load test.
+ */
+@Endpoint(id = "queries")
+@RequiredArgsConstructor
+public class QueryProfileEndpoint {
+    
+    private final QueryProfiler profiler;
+    
+    @ReadOperation
+    public Map<String, QueryProfiler.EndpointSummary> endpoints() {
+        return profiler.endpointSummaries();
+    }
+    
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+}
@@ -0,0 +1,272 @@
+package com.ecommerce.config;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Statement profiler behind the proxied {@code DataSource}. Every JDBC execution is counted against the profiles
+ * open on the current thread, one per request (see {@link QueryProfilingFilter}); a batch counts as one execution.
+ * Statements slower than the threshold are logged with the types of their bind parameters, never the values.
+ * <p>
+ * A finished profile violates its budget when it ran more statements than allowed or ran the same non-batched
+ * statement {@code repeated-statement-threshold} times or more, the signature of an N+1 load. Violations are logged
+ * and counted per endpoint, or thrown as {@link BudgetExceededException} when {@code fail-on-violation} is set.
+ */
+@Slf4j
+public class QueryProfiler implements QueryExecutionListener {
+    
+    private static final int MAX_LOGGED_SQL_LENGTH = 1000;
+    private static final int MAX_GROUP = 4;
+    
+    private final ThreadLocal<Profile> current = new ThreadLocal<>();
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final long slowQueryThresholdMillis;
+    private final int repeatedStatementThreshold;
+    private final boolean failOnViolation;
+    
+    public QueryProfiler(long slowQueryThresholdMillis, int repeatedStatementThreshold, boolean failOnViolation) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+        this.failOnViolation = failOnViolation;
+    }
+    
+    /**
+     * Opens a profile on the current thread that records statements until it is closed. Profiles nest: a statement
+     * counts for every profile open on the thread.
+     */
+    public Profile start() {
+        Profile profile = new Profile(current.get());
+        current.set(profile);
+        return profile;
+    }
+    
+    /**
+     * Adds a closed profile to the statistics of {@code endpoint} and checks it against {@code statementBudget}
+     * (0 or less checks nothing).
+     *
+     * @throws BudgetExceededException if the profile violates the budget and {@code fail-on-violation} is set
+     */
+    public void report(String endpoint, Profile profile, int statementBudget) {
+        String violation = statementBudget > 0 ? profile.violation(statementBudget) : null;
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).add(profile, violation);
+        if (violation == null) {
+            return;
+        }
+        if (failOnViolation) {
+            throw new BudgetExceededException(endpoint + ": " + violation);
+        }
+        log.warn("{}: {}", endpoint, violation);
+    }
+    
+    public Map<String, EndpointSummary> endpointSummaries() {
+        Map<String, EndpointSummary> summaries = new TreeMap<>();
+        endpoints.forEach((endpoint, stats) -> summaries.put(endpoint, stats.summary()));
+        return summaries;
+    }
+    
+    public void reset() {
+        endpoints.clear();
+    }
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        String sql = queries.size() == 1
+                ? queries.get(0).getQuery()
+                : queries.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        boolean slow = execution.getElapsedTime() >= slowQueryThresholdMillis;
+        if (slow) {
+            log.warn("Slow statement ({} ms, parameters {}): {}", execution.getElapsedTime(),
+                    parameterShape(execution, queries), abbreviate(sql));
+        }
+        for (Profile profile = current.get(); profile != null; profile = profile.parent) {
+            profile.record(execution, sql, slow);
+        }
+    }
+    
+    // Parameter types in order with repeats collapsed, e.g. [Long x500] for an IN list or [Timestamp, (Long, Integer)
+    // x500] for a VALUES list, plus the size of a batch
+    private static String parameterShape(ExecutionInfo execution, List<QueryInfo> queries) {
+        List<List<ParameterSetOperation>> parameters = queries.get(0).getParametersList();
+        List<ParameterSetOperation> first = parameters.isEmpty() ? List.of() : parameters.get(0);
+        List<String> types = new ArrayList<>();
+        for (ParameterSetOperation operation : first) {
+            if (ParameterSetOperation.isRegisterOutParameterOperation(operation)) {
+                continue;
+            }
+            Object[] args = operation.getArgs();
+            boolean isNull = ParameterSetOperation.isSetNullParameterOperation(operation)
+                    || args.length < 2 || args[1] == null;
+            types.add(isNull ? "null" : args[1].getClass().getSimpleName());
+        }
+        
+        List<String> shape = new ArrayList<>();
+        int i = 0;
+        while (i < types.size()) {
+            // The group of up to MAX_GROUP types starting here that repeats over the most parameters
+            int groupSize = 1;
+            int repeats = 1;
+            for (int size = 1; size <= MAX_GROUP && i + size <= types.size(); size++) {
+                List<String> group = types.subList(i, i + size);
+                int count = 1;
+                while (i + (count + 1) * size <= types.size()
+                        && types.subList(i + count * size, i + (count + 1) * size).equals(group)) {
+                    count++;
+                }
+                if (count > 1 && count * size > repeats * groupSize) {
+                    groupSize = size;
+                    repeats = count;
+                }
+            }
+            String group = String.join(", ", types.subList(i, i + groupSize));
+            shape.add(repeats == 1 ? group : (groupSize == 1 ? group : "(" + group + ")") + " x" + repeats);
+            i += groupSize * repeats;
+        }
+        String list = "[" + String.join(", ", shape) + "]";
+        return execution.isBatch() ? list + " in a batch of " + execution.getBatchSize() : list;
+    }
+    
+    private static String abbreviate(String sql) {
+        return sql.length() <= MAX_LOGGED_SQL_LENGTH ? sql : sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+    }
+    
+    /**
+     * The statements of one request or test, recorded by the thread that opened it.
+     */
+    public final class Profile implements AutoCloseable {
+        
+        private final Profile parent;
+        // Executions per statement, without batches: repeating a batched statement is what batching is for
+        private final Map<String, Integer> executions = new HashMap<>();
+        private int statements;
+        private int slowStatements;
+        private long elapsedMillis;
+        
+        private Profile(Profile parent) {
+            this.parent = parent;
+        }
+        
+        public int statements() {
+            return statements;
+        }
+        
+        public int slowStatements() {
+            return slowStatements;
+        }
+        
+        public long elapsedMillis() {
+            return elapsedMillis;
+        }
+        
+        /**
+         * Statements executed at least {@code repeated-statement-threshold} times, most frequent first.
+         */
+        public Map<String, Integer> repeatedStatements() {
+            return executions.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= repeatedStatementThreshold)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        }
+        
+        @Override
+        public void close() {
+            if (current.get() == this) {
+                if (parent == null) {
+                    current.remove();
+                } else {
+                    current.set(parent);
+                }
+            }
+        }
+        
+        private void record(ExecutionInfo execution, String sql, boolean slow) {
+            statements++;
+            elapsedMillis += execution.getElapsedTime();
+            if (slow) {
+                slowStatements++;
+            }
+            if (!execution.isBatch()) {
+                executions.merge(sql, 1, Integer::sum);
+            }
+        }
+        
+        private String violation(int statementBudget) {
+            Map<String, Integer> repeated = repeatedStatements();
+            if (!repeated.isEmpty()) {
+                Map.Entry<String, Integer> top = repeated.entrySet().iterator().next();
+                return statements + " statements, " + top.getValue() + " times the same (likely N+1): "
+                        + abbreviate(top.getKey());
+            }
+            if (statements > statementBudget) {
+                return statements + " statements, budget " + statementBudget;
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Totals of the profiled requests of an endpoint since startup or the last reset.
+     */
+    public record EndpointSummary(long requests, long statements, double averageStatements, long maxStatements,
+                                  long slowStatements, long violations, String lastViolation) {
+    }
+    
+    private static final class EndpointStats {
+        
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+        private final LongAdder slowStatements = new LongAdder();
+        private final LongAdder violations = new LongAdder();
+        private volatile String lastViolation;
+        
+        private void add(Profile profile, String violation) {
+            requests.increment();
+            statements.add(profile.statements);
+            maxStatements.accumulateAndGet(profile.statements, Math::max);
+            slowStatements.add(profile.slowStatements);
+            if (violation != null) {
+                violations.increment();
+                lastViolation = violation;
+            }
+        }
+        
+        private EndpointSummary summary() {
+            long requestCount = requests.sum();
+            long statementCount = statements.sum();
+            return new EndpointSummary(requestCount, statementCount,
+                    requestCount == 0 ? 0 : (double) statementCount / requestCount, maxStatements.get(),
+                    slowStatements.sum(), violations.sum(), lastViolation);
+        }
+    }
+    
+    /**
+     * A profile that exceeded its statement budget or repeated a statement, thrown in {@code fail-on-violation}
+     * mode so tests fail on query regressions.
+     */
+    public static class BudgetExceededException extends IllegalStateException {
+        
+        public BudgetExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "persistence.profiler.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryProfilingConfig {
+    
+    @Bean
+    public QueryProfiler queryProfiler(
+            @Value("${persistence.profiler.slow-query-threshold:200ms}") Duration slowQueryThreshold,
+            @Value("${persistence.profiler.repeated-statement-threshold:5}") int repeatedStatementThreshold,
+            @Value("${persistence.profiler.fail-on-violation:false}") boolean failOnViolation) {
+        return new QueryProfiler(slowQueryThreshold.toMillis(), repeatedStatementThreshold, failOnViolation);
+    }
+    
+    // Static and lazy so the post-processor is registered before the DataSource without creating the profiler early
+    @Bean
+    public static BeanPostProcessor queryProfilingDataSourcePostProcessor(ObjectProvider<QueryProfiler> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(profiler.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+    
+    @Bean
+    public FilterRegistrationBean<QueryProfilingFilter> queryProfilingFilter(
+            QueryProfiler profiler, Environment environment,
+            @Value("${persistence.profiler.statement-budget:50}") int statementBudget,
+            @Value("${persistence.profiler.response-headers:false}") boolean responseHeaders) {
+        // Per-endpoint overrides are keyed by controller and method,
+        // e.g. persistence.profiler.statement-budgets.OrderController.getAllOrders=5
+        QueryProfilingFilter filter = new QueryProfilingFilter(profiler,
+                handler -> environment.getProperty("persistence.profiler.statement-budgets."
+                                + handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName(),
+                        Integer.class, statementBudget),
+                responseHeaders);
+        FilterRegistrationBean<QueryProfilingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+    
+    @Bean
+    public QueryProfileEndpoint queryProfileEndpoint(QueryProfiler profiler) {
+        return new QueryProfileEndpoint(profiler);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Profiles the statements of each request and reports them for its controller method, e.g.
+ * {@code OrderController.getOrderById}. Statements run on other threads, such as the body of a streamed export,
+ * are not counted. With response headers on, the summary goes out as {@code X-Query-Count} and
+ * {@code Server-Timing: db;dur=...} ahead of the body, so it covers the statements issued before rendering.
+ */
+public class QueryProfilingFilter extends OncePerRequestFilter {
+    
+    private final QueryProfiler profiler;
+    private final ConcurrentMap<Method, Integer> budgets = new ConcurrentHashMap<>();
+    private final ToIntFunction<HandlerMethod> statementBudget;
+    private final boolean responseHeaders;
+    
+    public QueryProfilingFilter(QueryProfiler profiler, ToIntFunction<HandlerMethod> statementBudget,
+                                boolean responseHeaders) {
+        this.profiler = profiler;
+        this.statementBudget = statementBudget;
+        this.responseHeaders = responseHeaders;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryProfiler.Profile profile = profiler.start();
+        BeforeCommitResponse summarized = responseHeaders
+                ? new BeforeCommitResponse(response, () -> addSummary(response, profile))
+                : null;
+        try {
+            chain.doFilter(request, summarized != null ? summarized : response);
+            if (summarized != null) {
+                // Responses without a body never asked for a stream
+                summarized.beforeCommit();
+            }
+        } finally {
+            profile.close();
+        }
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            int budget = budgets.computeIfAbsent(handler.getMethod(), method -> statementBudget.applyAsInt(handler));
+            profiler.report(handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName(),
+                    profile, budget);
+        }
+    }
+    
+    private static void addSummary(HttpServletResponse response, QueryProfiler.Profile profile) {
+        response.setHeader("X-Query-Count", String.valueOf(profile.statements()));
+        response.addHeader("Server-Timing", "db;dur=" + profile.elapsedMillis() + ";desc=\"" + profile.statements()
+                + " statements\"");
+    }
+}
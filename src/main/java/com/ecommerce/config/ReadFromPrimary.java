@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends the read-only transactions of the annotated method to the primary even when read replicas are configured.
+ * For reads whose results outlive the replica lag, such as cache loads and in-memory state seeded from the
+ * database, where a stale replica row would be kept long after the replica caught up.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadFromPrimary {
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured pool with a primary pool and one pool per {@code datasource.replicas.urls} entry
+ * when replicas are configured. Every pool takes its settings from {@code spring.datasource.hikari}, and the
+ * replica pools can override them under {@code datasource.replicas.hikari}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReadReplicaConfig {
+    
+    @Bean(destroyMethod = "close")
+    public ReadReplicas readReplicas(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                     @Value("${datasource.replicas.urls}") List<String> urls,
+                                     @Value("${datasource.replicas.max-lag:5s}") Duration maxLag) {
+        // With the session open for the whole request, Hibernate would keep using the first transaction's
+        // connection, so a write could land on a replica connection
+        if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+            throw new IllegalStateException("Read replicas need spring.jpa.open-in-view=false");
+        }
+        HikariDataSource primary = pool(environment, registry, "primary", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), "spring.datasource.hikari");
+        primary.setDriverClassName(properties.determineDriverClassName());
+        
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            replicas.add(pool(environment, registry, "replica-" + (replicas.size() + 1), url.trim(),
+                    environment.getProperty("datasource.replicas.username", properties.determineUsername()),
+                    environment.getProperty("datasource.replicas.password", properties.determinePassword()),
+                    "spring.datasource.hikari", "datasource.replicas.hikari"));
+        }
+        return new ReadReplicas(primary, replicas, maxLag, registry);
+    }
+    
+    @Bean
+    public DataSource dataSource(ReadReplicas readReplicas) {
+        return new LazyConnectionDataSourceProxy(readReplicas.routingDataSource());
+    }
+    
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${datasource.replicas.sticky-for:5s}") Duration stickyFor) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyFor));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+    
+    @Bean
+    public ReadFromPrimaryAspect readFromPrimaryAspect() {
+        return new ReadFromPrimaryAspect();
+    }
+    
+    private static HikariDataSource pool(Environment environment, MeterRegistry registry, String name, String url,
+                                         String username, String password, String... settings) {
+        HikariDataSource pool = new HikariDataSource();
+        for (String prefix : settings) {
+            Binder.get(environment).bind(prefix, Bindable.ofInstance(pool));
+        }
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        return pool;
+    }
+    
+    @Aspect
+    static class ReadFromPrimaryAspect {
+        
+        @Around("@annotation(com.ecommerce.config.ReadFromPrimary)")
+        public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+            ReadRouting.enterPrimary();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                ReadRouting.exitPrimary();
+            }
+        }
+    }
+}
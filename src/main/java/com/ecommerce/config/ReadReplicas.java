@@ -0,0 +1,183 @@
+package com.ecommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The primary pool and the replica pools behind {@link #routingDataSource()}. Connections for read-only
+ * transactions go round-robin to the replicas that are reachable and no further behind than {@code max-lag};
+ * everything else, including reads that {@link ReadRouting} pins to the primary, goes to the primary. Lag is
+ * checked every {@code check-interval-ms}, and a replica that fails to hand out a connection is skipped until its
+ * next successful check. With no replica available, reads fall back to the primary.
+ */
+@Slf4j
+public class ReadReplicas implements Closeable {
+    
+    // Zero when the replica has replayed everything it received, so an idle primary does not look like lag
+    private static final String POSTGRES_LAG_SQL = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END
+            """;
+    
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+    private final DataSource routingDataSource = new RoutingDataSource();
+    
+    public ReadReplicas(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag,
+                        MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        this.replicaReads = Counter.builder("datasource.read.connections")
+                .description("Connections for read-only transactions, by the pool that served them")
+                .tag("target", "replica")
+                .register(registry);
+        this.primaryReads = Counter.builder("datasource.read.connections")
+                .description("Connections for read-only transactions, by the pool that served them")
+                .tag("target", "primary")
+                .register(registry);
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis < 0 ? -1 : r.lagMillis / 1000.0)
+                    .description("Replication lag of a read replica, -1 while unreachable")
+                    .baseUnit("seconds")
+                    .tag("pool", replica.dataSource.getPoolName())
+                    .register(registry);
+        }
+        checkReplicas();
+    }
+    
+    public DataSource routingDataSource() {
+        return routingDataSource;
+    }
+    
+    @Scheduled(fixedDelayString = "${datasource.replicas.check-interval-ms:1000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(1);
+                long lagMillis = 0;
+                if (connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")) {
+                    try (ResultSet lag = statement.executeQuery(POSTGRES_LAG_SQL)) {
+                        lag.next();
+                        lagMillis = lag.getLong(1);
+                    }
+                } else if (!connection.isValid(1)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                replica.update(lagMillis, lagMillis <= maxLagMillis, null);
+            } catch (SQLException e) {
+                replica.update(-1, false, e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+    
+    private Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadRouting.markWritten();
+            }
+            return primary.getConnection();
+        }
+        if (!ReadRouting.isPrimaryRequired()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.available) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.update(-1, false, e);
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+    
+    private static final class Replica {
+        
+        private final HikariDataSource dataSource;
+        private volatile boolean available;
+        private volatile long lagMillis = -1;
+        private volatile boolean checked;
+        
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+        
+        private void update(long lagMillis, boolean available, SQLException failure) {
+            boolean wasAvailable = this.available;
+            boolean firstCheck = !checked;
+            this.lagMillis = lagMillis;
+            this.available = available;
+            this.checked = true;
+            if ((wasAvailable || firstCheck) && !available) {
+                if (failure != null) {
+                    log.warn("Read replica {} is unavailable, reading from the primary: {}",
+                            dataSource.getPoolName(), failure.getMessage());
+                } else {
+                    log.warn("Read replica {} is {} ms behind, reading from the primary",
+                            dataSource.getPoolName(), lagMillis);
+                }
+            } else if (!wasAvailable && available) {
+                log.info("Read replica {} is available ({} ms behind)", dataSource.getPoolName(), lagMillis);
+            }
+        }
+    }
+    
+    // Chooses the pool per connection; wrapped in a LazyConnectionDataSourceProxy so that happens at the first
+    // statement, after the transaction has been marked read-only
+    private final class RoutingDataSource extends AbstractDataSource {
+        
+        @Override
+        public Connection getConnection() throws SQLException {
+            return ReadReplicas.this.getConnection();
+        }
+        
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Connections use the credentials of their pool");
+        }
+        
+        @Override
+        public <T> T unwrap(Class<T> type) throws SQLException {
+            return type.isInstance(this) ? type.cast(this) : primary.unwrap(type);
+        }
+        
+        @Override
+        public boolean isWrapperFor(Class<?> type) throws SQLException {
+            return type.isInstance(this) || primary.isWrapperFor(type);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.config;
+
+/**
+ * Per-thread routing hints for {@link ReadReplicas}: whether the current request or method must read from the
+ * primary, and whether the current request has written. Request state is set up by {@link ReadYourWritesFilter};
+ * outside a request only {@link ReadFromPrimary} sections apply.
+ */
+final class ReadRouting {
+    
+    private static final ThreadLocal<State> STATE = new ThreadLocal<>();
+    
+    private ReadRouting() {
+    }
+    
+    static void beginRequest(boolean sticky) {
+        State state = state();
+        state.request = true;
+        state.sticky = sticky;
+        state.wrote = false;
+    }
+    
+    static void endRequest() {
+        State state = STATE.get();
+        if (state != null) {
+            state.request = false;
+            state.sticky = false;
+            state.wrote = false;
+            removeIfIdle(state);
+        }
+    }
+    
+    // Records a write of the current request, so its later reads and the client's next ones go to the primary
+    static void markWritten() {
+        State state = STATE.get();
+        if (state != null && state.request) {
+            state.wrote = true;
+        }
+    }
+    
+    static boolean wroteInRequest() {
+        State state = STATE.get();
+        return state != null && state.wrote;
+    }
+    
+    static boolean isPrimaryRequired() {
+        State state = STATE.get();
+        return state != null && (state.sticky || state.wrote || state.primaryDepth > 0);
+    }
+    
+    static void enterPrimary() {
+        state().primaryDepth++;
+    }
+    
+    static void exitPrimary() {
+        State state = STATE.get();
+        state.primaryDepth--;
+        removeIfIdle(state);
+    }
+    
+    private static State state() {
+        State state = STATE.get();
+        if (state == null) {
+            state = new State();
+            STATE.set(state);
+        }
+        return state;
+    }
+    
+    private static void removeIfIdle(State state) {
+        if (!state.request && state.primaryDepth == 0) {
+            STATE.remove();
+        }
+    }
+    
+    private static final class State {
+        private boolean request;
+        private boolean sticky;
+        private boolean wrote;
+        private int primaryDepth;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes across requests: a request that wrote, such as placing an order, answers with a cookie that
+ * keeps the client's reads on the primary for {@code sticky-for}, long enough for the replicas to catch up. Within
+ * a request, reads after a write go to the primary anyway.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    static final String COOKIE = "db-primary-until";
+    
+    private final long stickyForMillis;
+    
+    public ReadYourWritesFilter(Duration stickyFor) {
+        this.stickyForMillis = stickyFor.toMillis();
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadRouting.beginRequest(primaryUntil(request) > System.currentTimeMillis());
+        BeforeCommitResponse sticky = new BeforeCommitResponse(response, () -> {
+            if (ReadRouting.wroteInRequest()) {
+                Cookie cookie = new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + stickyForMillis));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.max(1, stickyForMillis / 1000));
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            chain.doFilter(request, sticky);
+            sticky.beforeCommit();
+        } finally {
+            ReadRouting.endRequest();
+        }
+    }
+    
+    private static long primaryUntil(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (cookie.getName().equals(COOKIE)) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
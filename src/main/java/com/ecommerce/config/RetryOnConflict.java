@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated transactional method again when it loses an optimistic locking race, each time in a new
+ * transaction that reads the winner's state. Only for methods that decide from what they read rather than from
+ * a version the caller supplied, which would conflict on every attempt. See {@link ConflictRetry}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+}
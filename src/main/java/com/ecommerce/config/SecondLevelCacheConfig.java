@@ -0,0 +1,105 @@
+package com.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache on Caffeine through JCache: entity regions for {@code Category} and {@code User}
+ * and query regions for their hot finders. Every region is created here with its own size limit and reports
+ * the {@code cache.*} metrics with {@code cache.manager=hibernate}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    
+    public static final String CATEGORIES = "categories";
+    public static final String USERS = "users";
+    public static final String CATEGORY_QUERIES = "category-queries";
+    public static final String USER_QUERIES = "user-queries";
+    
+    private static final String METRICS_CACHE_MANAGER = "hibernate";
+    // Only for cacheable queries that name no region of their own
+    private static final long DEFAULT_QUERIES_MAXIMUM_SIZE = 1000;
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "persistence.second-level-cache.enabled", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(
+            MeterRegistry registry,
+            @Value("${persistence.second-level-cache.categories.maximum-size:1000}") long categoriesMaximumSize,
+            @Value("${persistence.second-level-cache.users.maximum-size:10000}") long usersMaximumSize,
+            @Value("${persistence.second-level-cache.category-queries.maximum-size:100}")
+            long categoryQueriesMaximumSize,
+            @Value("${persistence.second-level-cache.user-queries.maximum-size:10000}") long userQueriesMaximumSize,
+            @Value("${persistence.second-level-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        // A private manager per application context; the provider's default one is shared by the whole JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        
+        // The services load these regions from the primary (@ReadFromPrimary); the TTL is a backstop for rows that
+        // reach them through other reads, e.g. a lazy association loaded on a replica
+        createRegion(cacheManager, registry, CATEGORIES, categoriesMaximumSize, expireAfterWrite);
+        createRegion(cacheManager, registry, USERS, usersMaximumSize, expireAfterWrite);
+        createRegion(cacheManager, registry, CATEGORY_QUERIES, categoryQueriesMaximumSize, expireAfterWrite);
+        createRegion(cacheManager, registry, USER_QUERIES, userQueriesMaximumSize, expireAfterWrite);
+        createRegion(cacheManager, registry, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                DEFAULT_QUERIES_MAXIMUM_SIZE, expireAfterWrite);
+        
+        // Last write per table, which decides whether a cached query result is still valid; it must never evict
+        createRegion(cacheManager, registry, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                -1, null);
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(ObjectProvider<CacheManager> hibernateCacheManager) {
+        CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+        return properties -> {
+            if (cacheManager == null) {
+                // Hibernate would otherwise find hibernate-jcache on the classpath and create unbounded regions
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                return;
+            }
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            // A region missing above is a mapping mistake, not something to create unbounded
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+    
+    private static void createRegion(CacheManager cacheManager, MeterRegistry registry, String name,
+                                     long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate caches immutable disassembled state, so entries need no copying
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        if (maximumSize >= 0) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (expireAfterWrite != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        javax.cache.Cache<Object, Object> region = cacheManager.createCache(name, configuration);
+        CaffeineCacheMetrics.monitor(registry, region.unwrap(Cache.class), name, "cache.manager",
+                METRICS_CACHE_MANAGER);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.config;
+
+import com.ecommerce.service.InsufficientStockException;
+import com.ecommerce.service.PaymentGateway;
+import com.ecommerce.service.PaymentGatewayException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers for every public method of the order, product and payment services ({@code ecommerce.service},
+ * tagged with class, method and exception) plus the business counters derived from the same calls:
+ * {@code ecommerce.orders.created}, {@code ecommerce.orders.stockouts} and {@code ecommerce.payments.outcomes}.
+ * Histograms and percentiles are configured per meter name under {@code management.metrics.distribution}.
+ * Repository and connection pool timings come from Spring Boot's own instrumentation.
+ */
+@Aspect
+@Component
+// Ahead of the transaction and cache advisors, so the timings include cache lookups and the transaction commit,
+// and of ConflictRetry, so they include every attempt
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class ServiceMetricsAspect {
+    
+    private static final String SERVICE_TIMER = "ecommerce.service";
+    
+    private final MeterRegistry registry;
+    private final Counter ordersCreated;
+    private final Counter orderStockouts;
+    private final Counter paymentsCompleted;
+    private final Counter paymentsFailed;
+    private final Counter paymentsErrored;
+    
+    // Timers of calls that returned normally, looked up once per method instead of on every call
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+    
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+        this.ordersCreated = Counter.builder("ecommerce.orders.created")
+                .description("Orders placed")
+                .register(registry);
+        this.orderStockouts = Counter.builder("ecommerce.orders.stockouts")
+                .description("Orders rejected because a product ran out of stock")
+                .register(registry);
+        this.paymentsCompleted = paymentOutcome("completed");
+        this.paymentsFailed = paymentOutcome("failed");
+        this.paymentsErrored = paymentOutcome("error");
+    }
+    
+    @Around("execution(public * com.ecommerce.service.OrderService.*(..))"
+            + " || execution(public * com.ecommerce.service.ProductService.*(..))"
+            + " || execution(public * com.ecommerce.service.PaymentService.*(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            timer(joinPoint, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        timers.computeIfAbsent(method, m -> timer(joinPoint, "none"))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+    
+    @AfterReturning("execution(* com.ecommerce.service.OrderService.createOrder(..))")
+    public void countOrderCreated() {
+        ordersCreated.increment();
+    }
+    
+    @AfterThrowing(pointcut = "execution(* com.ecommerce.service.OrderService.createOrder(..))",
+            throwing = "e")
+    public void countOrderStockout(InsufficientStockException e) {
+        orderStockouts.increment();
+    }
+    
+    // Charges of the payment outbox: approved and declined charges settle the payment, errors are retried
+    @AfterReturning(pointcut = "execution(* com.ecommerce.service.PaymentGateway.charge(..))", returning = "result")
+    public void countCharge(PaymentGateway.Result result) {
+        (result.approved() ? paymentsCompleted : paymentsFailed).increment();
+    }
+    
+    @AfterThrowing(pointcut = "execution(* com.ecommerce.service.PaymentGateway.charge(..))", throwing = "e")
+    public void countChargeError(PaymentGatewayException e) {
+        paymentsErrored.increment();
+    }
+    
+    // Payments settled directly through the API rather than by the gateway
+    @AfterReturning("execution(* com.ecommerce.service.PaymentService.processPayment(..))")
+    public void countPaymentProcessed() {
+        paymentsCompleted.increment();
+    }
+    
+    @AfterReturning("execution(* com.ecommerce.service.PaymentService.failPayment(..))")
+    public void countPaymentFailed() {
+        paymentsFailed.increment();
+    }
+    
+    private Timer timer(ProceedingJoinPoint joinPoint, String exception) {
+        return Timer.builder(SERVICE_TIMER)
+                .description("Service method latency")
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+    
+    private Counter paymentOutcome(String outcome) {
+        return Counter.builder("ecommerce.payments.outcomes")
+                .description("Payments settled, by outcome; error counts gateway calls that will be retried")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
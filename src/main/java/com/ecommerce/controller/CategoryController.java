@@ -1,6 +1,11 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.model.dto.BestSeller;
+import com.ecommerce.model.dto.CategoryDetails;
+import com.ecommerce.model.dto.CategorySummary;
 import com.ecommerce.model.entity.Category;
+import com.ecommerce.service.BestSellerRanking;
+import com.ecommerce.service.BestSellers;
 import com.ecommerce.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -14,52 +19,66 @@ import java.util.List;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final BestSellers bestSellers;
     
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.findAllActive();
+    public ResponseEntity<List<CategorySummary>> getAllCategories() {
+        List<CategorySummary> categories = categoryService.findAllActive();
         return ResponseEntity.ok(categories);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable Long id) {
-        return categoryService.findById(id)
+    public ResponseEntity<CategorySummary> getCategoryById(@PathVariable Long id) {
+        return categoryService.findActiveById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/root")
-    public ResponseEntity<List<Category>> getRootCategories() {
-        List<Category> categories = categoryService.findRootCategories();
+    public ResponseEntity<List<CategorySummary>> getRootCategories() {
+        List<CategorySummary> categories = categoryService.findRootCategories();
         return ResponseEntity.ok(categories);
     }
     
+    // Answered from the in-memory ranking; window is 24h, 7d or all
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<BestSeller>> getBestSellers(
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(bestSellers.topCategories(BestSellerRanking.Window.of(window),
+                    Math.max(1, Math.min(limit, 100))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}/subcategories")
-    public ResponseEntity<List<Category>> getSubCategories(@PathVariable Long id) {
-        List<Category> categories = categoryService.findSubCategories(id);
+    public ResponseEntity<List<CategorySummary>> getSubCategories(@PathVariable Long id) {
+        List<CategorySummary> categories = categoryService.findSubCategories(id);
         return ResponseEntity.ok(categories);
     }
     
     @GetMapping("/{id}/with-subcategories")
-    public ResponseEntity<Category> getCategoryWithSubCategories(@PathVariable Long id) {
+    public ResponseEntity<CategoryDetails> getCategoryWithSubCategories(@PathVariable Long id) {
         return categoryService.findByIdWithSubCategories(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @PostMapping
-    public ResponseEntity<Category> createCategory(@RequestBody Category category) {
+    public ResponseEntity<CategorySummary> createCategory(@RequestBody Category category) {
         Category savedCategory = categoryService.save(category);
-        return ResponseEntity.ok(savedCategory);
+        return ResponseEntity.ok(CategorySummary.from(savedCategory));
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<Category> updateCategory(@PathVariable Long id, @RequestBody Category category) {
+    public ResponseEntity<CategorySummary> updateCategory(@PathVariable Long id, @RequestBody Category category) {
         return categoryService.findById(id)
                 .map(existingCategory -> {
                     category.setId(id);
                     Category updatedCategory = categoryService.update(category);
-                    return ResponseEntity.ok(updatedCategory);
+                    return ResponseEntity.ok(CategorySummary.from(updatedCategory));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -0,0 +1,146 @@
+package com.ecommerce.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the rows of an export straight to the response as NDJSON (one JSON object per line) or CSV (a header
+ * from the record components, then one line per row). Only the output buffer is held in memory, whatever the
+ * number of rows; a client that disconnects aborts the export with an {@link UncheckedIOException}.
+ */
+final class ExportWriter<T extends Record> implements Consumer<T> {
+    
+    enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+        CSV(MediaType.parseMediaType("text/csv"));
+        
+        private final MediaType mediaType;
+        
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+        
+        static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + name);
+            }
+        }
+        
+        static Format of(MediaType contentType) {
+            return CSV.mediaType.isCompatibleWith(contentType) ? CSV : NDJSON;
+        }
+    }
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final Writer out;
+    private final JsonGenerator json;
+    private final RecordComponent[] columns;
+    
+    private ExportWriter(Format format, Class<T> type, ObjectMapper objectMapper, Writer out) throws IOException {
+        this.out = out;
+        if (format == Format.NDJSON) {
+            this.json = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setRootValueSeparator(null);
+            this.columns = null;
+        } else {
+            this.json = null;
+            this.columns = type.getRecordComponents();
+            out.write(Arrays.stream(columns).map(RecordComponent::getName).collect(Collectors.joining(",")));
+            out.write('\n');
+        }
+    }
+    
+    /**
+     * Response whose body runs {@code export} with a writer for the requested format once the servlet
+     * container hands over the output stream, outside the request thread.
+     */
+    static <T extends Record> ResponseEntity<StreamingResponseBody> response(String format, String fileName,
+                                                                            Class<T> type, ObjectMapper objectMapper,
+                                                                            Consumer<Consumer<T>> export) {
+        Format exportFormat = Format.of(format);
+        StreamingResponseBody body = output -> {
+            Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+            ExportWriter<T> writer = new ExportWriter<>(exportFormat, type, objectMapper, out);
+            try {
+                export.accept(writer);
+            } catch (UncheckedIOException e) {
+                // Surface client disconnects as the IOException Spring MVC expects from a streaming body
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "."
+                        + exportFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+    
+    @Override
+    public void accept(T row) {
+        try {
+            if (json != null) {
+                json.writeObject(row);
+                json.writeRaw('\n');
+            } else {
+                writeCsv(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void writeCsv(T row) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value;
+            try {
+                value = columns[i].getAccessor().invoke(row);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            out.write(csvValue(value));
+        }
+        out.write('\n');
+    }
+    
+    private void flush() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        out.flush();
+    }
+    
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
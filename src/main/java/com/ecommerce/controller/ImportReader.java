@@ -0,0 +1,169 @@
+package com.ecommerce.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the rows of an import from a request body as it arrives, in the formats {@link ExportWriter} writes:
+ * NDJSON (one JSON object per line) or CSV (a header naming the record components in any order and case, then one
+ * row per line; quoted values may span lines). Columns that name no component are ignored and empty values are
+ * null. A row that cannot be parsed is rejected with the line it starts on and reading carries on with the next.
+ */
+final class ImportReader<T extends Record> {
+    
+    @FunctionalInterface
+    interface LineConsumer<V> {
+        void accept(long line, V value);
+    }
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final BufferedReader in;
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+    private final LineConsumer<T> rows;
+    private final LineConsumer<String> rejected;
+    
+    private long line = 1;
+    
+    private ImportReader(InputStream body, Class<T> type, ObjectMapper objectMapper,
+                         LineConsumer<T> rows, LineConsumer<String> rejected) {
+        this.in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.type = type;
+        this.objectMapper = objectMapper;
+        this.rows = rows;
+        this.rejected = rejected;
+    }
+    
+    /**
+     * Passes every row of {@code body} to {@code rows} and every unparsable one, as an error message, to
+     * {@code rejected}, both with the line number the row starts on.
+     */
+    static <T extends Record> void read(ExportWriter.Format format, InputStream body, Class<T> type,
+                                        ObjectMapper objectMapper, LineConsumer<T> rows,
+                                        LineConsumer<String> rejected) throws IOException {
+        ImportReader<T> reader = new ImportReader<>(body, type, objectMapper, rows, rejected);
+        if (format == ExportWriter.Format.NDJSON) {
+            reader.readNdjson();
+        } else {
+            reader.readCsv();
+        }
+    }
+    
+    private void readNdjson() throws IOException {
+        for (String text = in.readLine(); text != null; text = in.readLine(), line++) {
+            if (text.isBlank()) {
+                continue;
+            }
+            T row;
+            try {
+                row = objectMapper.readValue(text, type);
+            } catch (JsonProcessingException e) {
+                rejected.accept(line, e.getOriginalMessage());
+                continue;
+            }
+            if (row != null) {
+                rows.accept(line, row);
+            } else {
+                rejected.accept(line, "expected a JSON object, found null");
+            }
+        }
+    }
+    
+    private void readCsv() throws IOException {
+        List<String> header = nextCsvRecord();
+        while (header != null && isBlank(header)) {
+            header = nextCsvRecord();
+        }
+        if (header == null) {
+            return;
+        }
+        Map<String, String> components = new HashMap<>();
+        for (RecordComponent component : type.getRecordComponents()) {
+            components.put(component.getName().toLowerCase(Locale.ROOT), component.getName());
+        }
+        String[] columns = header.stream()
+                .map(name -> components.get(name.trim().toLowerCase(Locale.ROOT)))
+                .toArray(String[]::new);
+        
+        long start = line;
+        for (List<String> values = nextCsvRecord(); values != null; start = line, values = nextCsvRecord()) {
+            if (isBlank(values)) {
+                continue;
+            }
+            if (values.size() != columns.length) {
+                rejected.accept(start, "expected " + columns.length + " values, found " + values.size());
+                continue;
+            }
+            ObjectNode row = objectMapper.createObjectNode();
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != null && !values.get(i).isEmpty()) {
+                    row.put(columns[i], values.get(i));
+                }
+            }
+            try {
+                rows.accept(start, objectMapper.treeToValue(row, type));
+            } catch (JsonProcessingException e) {
+                rejected.accept(start, e.getOriginalMessage());
+            }
+        }
+    }
+    
+    // The values of the next CSV record, or null at the end of the body; an unterminated quote ends at the end
+    private List<String> nextCsvRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    values.add(value.toString());
+                    return values;
+                }
+                if (c == '"') {
+                    c = in.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                value.append((char) c);
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                line++;
+                values.add(value.toString());
+                return values;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+    
+    private static boolean isBlank(List<String> values) {
+        return values.size() == 1 && values.get(0).isBlank();
+    }
+}
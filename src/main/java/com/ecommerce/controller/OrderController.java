@@ -1,16 +1,27 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.model.dto.CursorSlice;
+import com.ecommerce.model.dto.OrderDetails;
+import com.ecommerce.model.dto.OrderSummary;
+import com.ecommerce.model.dto.OrderTransitionResult;
 import com.ecommerce.model.entity.Order;
 import com.ecommerce.model.entity.OrderStatus;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.OrderTransitions;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
@@ -19,48 +30,91 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderTransitions orderTransitions;
+    private final ObjectMapper objectMapper;
     
     @GetMapping
-    public ResponseEntity<Page<Order>> getAllOrders(
+    public ResponseEntity<Page<OrderSummary>> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders = orderService.findAll(pageable);
+        Page<OrderSummary> orders = orderService.findAllSummaries(pageable);
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorSlice<OrderSummary>> scrollOrders(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        try {
+            return ResponseEntity.ok(orderService.scrollLatest(after, sliceSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        return orderService.findByIdWithUserAndItems(id)
+    public ResponseEntity<OrderDetails> getOrderById(@PathVariable Long id) {
+        return orderService.findDetailsById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Page<Order>> getOrdersByUserId(
+    public ResponseEntity<Page<OrderSummary>> getOrdersByUserId(
             @PathVariable Long userId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders = orderService.findByUserId(userId, pageable);
+        Page<OrderSummary> orders = orderService.findSummariesByUserId(userId, pageable);
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/user/{userId}/scroll")
+    public ResponseEntity<CursorSlice<OrderSummary>> scrollOrdersByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        try {
+            return ResponseEntity.ok(orderService.scrollLatestByUserId(userId, after, sliceSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable OrderStatus status) {
-        List<Order> orders = orderService.findByStatus(status);
+    public ResponseEntity<List<OrderSummary>> getOrdersByStatus(@PathVariable OrderStatus status) {
+        List<OrderSummary> orders = orderService.findSummariesByStatus(status);
         return ResponseEntity.ok(orders);
     }
     
     @GetMapping("/order-number/{orderNumber}")
-    public ResponseEntity<Order> getOrderByOrderNumber(@PathVariable String orderNumber) {
-        return orderService.findByOrderNumber(orderNumber)
+    public ResponseEntity<OrderDetails> getOrderByOrderNumber(@PathVariable String orderNumber) {
+        return orderService.findDetailsByOrderNumber(orderNumber)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Streams the orders created in [from, to) as NDJSON or CSV, oldest first; defaults to all orders until now
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            LocalDateTime fromDateTime = from != null ? LocalDateTime.parse(from) : LocalDate.EPOCH.atStartOfDay();
+            LocalDateTime toDateTime = to != null ? LocalDateTime.parse(to) : LocalDateTime.now();
+            return ExportWriter.response(format, "orders", OrderSummary.class, objectMapper,
+                    sink -> orderService.exportSummaries(fromDateTime, toDateTime, sink));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/report/daily")
     public ResponseEntity<List<Object[]>> getDailyOrderReport(
             @RequestParam String startDate) {
@@ -69,24 +123,54 @@ public class OrderController {
         return ResponseEntity.ok(report);
     }
     
+    // Recomputes the closed days of the daily report from the orders table
+    @PostMapping("/report/daily/backfill")
+    public ResponseEntity<Integer> backfillDailyOrderReport() {
+        return ResponseEntity.ok(orderService.backfillDailyOrderReport());
+    }
+    
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody Order order) {
+    public ResponseEntity<OrderSummary> createOrder(@RequestBody Order order) {
         Order savedOrder = orderService.createOrder(order);
-        return ResponseEntity.ok(savedOrder);
+        return ResponseEntity.ok(OrderSummary.from(savedOrder));
     }
     
     @PutMapping("/{id}/status")
-    public ResponseEntity<Order> updateOrderStatus(
+    public ResponseEntity<OrderSummary> updateOrderStatus(
             @PathVariable Long id,
             @RequestParam OrderStatus status) {
-        Order updatedOrder = orderService.updateOrderStatus(id, status);
-        return ResponseEntity.ok(updatedOrder);
+        try {
+            Order updatedOrder = orderService.updateOrderStatus(id, status);
+            return ResponseEntity.ok(OrderSummary.from(updatedOrder));
+        } catch (IllegalStateException e) {
+            // The transition table has no move from the current status
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting once the retries ran out
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    // Bulk transition for fulfilment systems: ?status=SHIPPED with a JSON array of order ids, one outcome per id
+    @PutMapping("/status")
+    public ResponseEntity<OrderTransitionResult> transitionOrders(
+            @RequestParam OrderStatus status,
+            @RequestBody List<Long> orderIds) {
+        try {
+            return ResponseEntity.ok(orderTransitions.apply(orderIds, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Order> cancelOrder(@PathVariable Long id) {
-        Order cancelledOrder = orderService.cancelOrder(id);
-        return ResponseEntity.ok(cancelledOrder);
+    public ResponseEntity<OrderSummary> cancelOrder(@PathVariable Long id) {
+        try {
+            Order cancelledOrder = orderService.cancelOrder(id);
+            return ResponseEntity.ok(OrderSummary.from(cancelledOrder));
+        } catch (IllegalStateException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
     
     @DeleteMapping("/{id}")
@@ -94,4 +178,8 @@ public class OrderController {
         orderService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+    
+    private static int sliceSize(int size) {
+        return Math.max(1, Math.min(size, 100));
+    }
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.model.dto.PaymentSummary;
 import com.ecommerce.model.entity.Payment;
 import com.ecommerce.model.entity.PaymentStatus;
 import com.ecommerce.service.PaymentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -16,43 +24,53 @@ import java.util.List;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
     
     @GetMapping
-    public ResponseEntity<List<Payment>> getAllPayments() {
-        List<Payment> payments = paymentService.findAll();
+    public ResponseEntity<List<PaymentSummary>> getAllPayments() {
+        List<PaymentSummary> payments = paymentService.findAllSummaries();
         return ResponseEntity.ok(payments);
     }
     
+    // Streams every payment as NDJSON or CSV without loading the full list
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            return ExportWriter.response(format, "payments", PaymentSummary.class, objectMapper,
+                    paymentService::exportSummaries);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Payment> getPaymentById(@PathVariable Long id) {
-        return paymentService.findById(id)
+    public ResponseEntity<PaymentSummary> getPaymentById(@PathVariable Long id) {
+        return paymentService.findSummaryById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/order/{orderId}")
-    public ResponseEntity<Payment> getPaymentByOrderId(@PathVariable Long orderId) {
-        return paymentService.findByOrderId(orderId)
+    public ResponseEntity<PaymentSummary> getPaymentByOrderId(@PathVariable Long orderId) {
+        return paymentService.findSummaryByOrderId(orderId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Payment>> getPaymentsByStatus(@PathVariable PaymentStatus status) {
-        List<Payment> payments = paymentService.findByStatus(status);
+    public ResponseEntity<List<PaymentSummary>> getPaymentsByStatus(@PathVariable PaymentStatus status) {
+        List<PaymentSummary> payments = paymentService.findSummariesByStatus(status);
         return ResponseEntity.ok(payments);
     }
     
     @GetMapping("/report")
-    public ResponseEntity<List<Object[]>> getPaymentReport(
+    public ResponseEntity<List<PaymentSummary>> getPaymentReport(
             @RequestParam String startDate,
             @RequestParam String endDate) {
         LocalDateTime startDateTime = LocalDateTime.parse(startDate);
         LocalDateTime endDateTime = LocalDateTime.parse(endDate);
-        List<Payment> payments = paymentService.findCompletedPaymentsBetweenDates(startDateTime, endDateTime);
-        return ResponseEntity.ok(payments.stream().map(p -> new Object[]{
-                p.getId(), p.getOrder().getOrderNumber(), p.getAmount(), p.getPaymentMethod(), p.getPaymentDate()
-        }).toList());
+        List<PaymentSummary> payments = paymentService.findCompletedSummariesBetweenDates(startDateTime, endDateTime);
+        return ResponseEntity.ok(payments);
     }
     
     @GetMapping("/statistics")
@@ -61,6 +79,12 @@ public class PaymentController {
         return ResponseEntity.ok(statistics);
     }
     
+    // Recomputes the statistics rollups from the payments table
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<Integer> rebuildStatistics() {
+        return ResponseEntity.ok(paymentService.rebuildStatistics());
+    }
+    
     @GetMapping("/revenue")
     public ResponseEntity<Double> getTotalRevenue() {
         Double revenue = paymentService.getTotalRevenue();
@@ -68,21 +92,62 @@ public class PaymentController {
     }
     
     @PostMapping
-    public ResponseEntity<Payment> createPayment(@RequestBody Payment payment) {
-        Payment savedPayment = paymentService.createPayment(payment);
-        return ResponseEntity.ok(savedPayment);
+    public ResponseEntity<PaymentSummary> createPayment(@RequestBody Payment payment) {
+        try {
+            Payment savedPayment = paymentService.createPayment(payment);
+            return ResponseEntity.ok(PaymentSummary.from(savedPayment));
+        } catch (IllegalStateException e) {
+            // The order is past the point where it can be paid
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    // 202: the gateway is called in the background; poll GET /api/payments/{id} for the outcome
+    @PostMapping("/async")
+    public ResponseEntity<PaymentSummary> submitPayment(@RequestBody Payment payment) {
+        PaymentSummary accepted;
+        try {
+            accepted = paymentService.submitPayment(payment);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same transaction id won, or the order already has a payment
+            return Optional.ofNullable(payment.getTransactionId())
+                    .flatMap(paymentService::findSummaryByTransactionId)
+                    .map(existing -> ResponseEntity.accepted().location(location(existing)).body(existing))
+                    .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().location(location(accepted)).body(accepted);
     }
     
     @PutMapping("/{id}/process")
-    public ResponseEntity<Payment> processPayment(@PathVariable Long id) {
-        Payment processedPayment = paymentService.processPayment(id);
-        return ResponseEntity.ok(processedPayment);
+    public ResponseEntity<PaymentSummary> processPayment(@PathVariable Long id) {
+        try {
+            Payment processedPayment = paymentService.processPayment(id);
+            return ResponseEntity.ok(PaymentSummary.from(processedPayment));
+        } catch (IllegalStateException e) {
+            // The order was cancelled first, or has no move to PROCESSING
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting once the retries ran out
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
     
     @PutMapping("/{id}/fail")
-    public ResponseEntity<Payment> failPayment(@PathVariable Long id) {
-        Payment failedPayment = paymentService.failPayment(id);
-        return ResponseEntity.ok(failedPayment);
+    public ResponseEntity<PaymentSummary> failPayment(@PathVariable Long id) {
+        try {
+            Payment failedPayment = paymentService.failPayment(id);
+            return ResponseEntity.ok(PaymentSummary.from(failedPayment));
+        } catch (IllegalStateException e) {
+            // The order is already past cancellation
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting once the retries ran out
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
     
     @DeleteMapping("/{id}")
@@ -90,4 +155,8 @@ public class PaymentController {
         paymentService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+    
+    private static URI location(PaymentSummary payment) {
+        return URI.create("/api/payments/" + payment.id());
+    }
 }
\ No newline at end of file
@@ -1,15 +1,36 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.model.dto.BestSeller;
+import com.ecommerce.model.dto.CursorSlice;
+import com.ecommerce.model.dto.ProductDetails;
+import com.ecommerce.model.dto.ProductImportResult;
+import com.ecommerce.model.dto.ProductImportRow;
+import com.ecommerce.model.dto.ProductSummary;
+import com.ecommerce.model.dto.StockAdjustment;
+import com.ecommerce.model.dto.StockSyncResult;
 import com.ecommerce.model.entity.Product;
+import com.ecommerce.service.BestSellerRanking;
+import com.ecommerce.service.BestSellers;
+import com.ecommerce.service.KeysetCursor;
+import com.ecommerce.service.ProductImport;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.StockSync;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -19,9 +40,13 @@ import java.util.List;
 public class ProductController {
     
     private final ProductService productService;
+    private final BestSellers bestSellers;
+    private final ProductImport productImport;
+    private final StockSync stockSync;
+    private final ObjectMapper objectMapper;
     
     @GetMapping
-    public ResponseEntity<Page<Product>> getAllProducts(
+    public ResponseEntity<Page<ProductSummary>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -31,73 +56,152 @@ public class ProductController {
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Product> products = productService.findAllActive(pageable);
+        Page<ProductSummary> products = productService.findAllActive(pageable);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorSlice<ProductSummary>> scrollProducts(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sortBy) {
+        
+        try {
+            CursorSlice<ProductSummary> products = switch (sortBy) {
+                case "id" -> productService.scrollActiveById(after, sliceSize(size));
+                case "price" -> productService.scrollActiveByPrice(after, sliceSize(size));
+                default -> throw new IllegalArgumentException("Unsupported sort for scrolling: " + sortBy);
+            };
+            return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Streams every product as NDJSON or CSV instead of paging through offset queries
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            return ExportWriter.response(format, "products", ProductSummary.class, objectMapper,
+                    productService::exportSummaries);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Answered from the in-memory ranking; window is 24h, 7d or all
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<BestSeller>> getBestSellers(
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(bestSellers.topProducts(BestSellerRanking.Window.of(window), sliceSize(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return productService.findById(id)
+    public ResponseEntity<ProductDetails> getProductById(@PathVariable Long id) {
+        return productService.findDetailsById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Page<Product>> getProductsByCategory(
+    public ResponseEntity<Page<ProductSummary>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productService.findByCategory(categoryId, pageable);
+        Page<ProductSummary> products = productService.findByCategory(categoryId, pageable);
+        return ResponseEntity.ok(products);
+    }
+    
+    @GetMapping("/category/{categoryId}/tree")
+    public ResponseEntity<CursorSlice<ProductSummary>> getProductsByCategoryTree(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        Long afterId;
+        try {
+            afterId = after != null ? KeysetCursor.decodeId(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        CursorSlice<ProductSummary> products = productService.findByCategoryTree(categoryId, afterId, sliceSize(size));
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<Product>> searchProducts(
+    public ResponseEntity<Page<ProductSummary>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productService.searchByName(keyword, pageable);
+        Page<ProductSummary> products = productService.search(keyword, pageable);
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/price-range")
-    public ResponseEntity<Page<Product>> getProductsByPriceRange(
+    public ResponseEntity<Page<ProductSummary>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productService.findByPriceRange(minPrice, maxPrice, pageable);
+        Page<ProductSummary> products = productService.findByPriceRange(minPrice, maxPrice, pageable);
         return ResponseEntity.ok(products);
     }
     
     @GetMapping("/low-stock")
-    public ResponseEntity<List<Product>> getLowStockProducts(
+    public ResponseEntity<List<ProductSummary>> getLowStockProducts(
             @RequestParam(defaultValue = "10") Integer threshold) {
-        List<Product> products = productService.findLowStockProducts(threshold);
+        List<ProductSummary> products = productService.findLowStockProducts(threshold);
         return ResponseEntity.ok(products);
     }
     
     @PostMapping
-    public ResponseEntity<Product> createProduct(@RequestBody Product product) {
+    public ResponseEntity<ProductSummary> createProduct(@RequestBody Product product) {
         Product savedProduct = productService.save(product);
-        return ResponseEntity.ok(savedProduct);
+        return ResponseEntity.ok(ProductSummary.from(savedProduct));
+    }
+    
+    // Upserts products by sku from a CSV (text/csv) or NDJSON (application/x-ndjson) body read as it arrives;
+    // failed rows are reported in the result instead of aborting the import
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResult> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) throws IOException {
+        ProductImport.Session session = productImport.begin();
+        ImportReader.read(ExportWriter.Format.of(contentType), body, ProductImportRow.class, objectMapper,
+                session::add, session::reject);
+        return ResponseEntity.ok(session.finish());
+    }
+    
+    // Warehouse stock sync: absolute levels ({"productId":1,"stock":40}) or deltas ({"productId":1,"delta":-3})
+    @PutMapping("/stock")
+    public ResponseEntity<StockSyncResult> syncStock(@RequestBody List<StockAdjustment> adjustments) {
+        return ResponseEntity.ok(stockSync.apply(adjustments));
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
-        return productService.findById(id)
-                .map(existingProduct -> {
-                    product.setId(id);
-                    Product updatedProduct = productService.update(product);
-                    return ResponseEntity.ok(updatedProduct);
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ProductSummary> updateProduct(@PathVariable Long id, @RequestBody Product product) {
+        try {
+            return productService.findById(id)
+                    .map(existingProduct -> {
+                        product.setId(id);
+                        Product updatedProduct = productService.update(product);
+                        return ResponseEntity.ok(ProductSummary.from(updatedProduct));
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (ConcurrencyFailureException e) {
+            // The client's version is stale: the product changed since it was read
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
     
     @DeleteMapping("/{id}")
@@ -108,7 +212,16 @@ public class ProductController {
     
     @PutMapping("/{id}/deactivate")
     public ResponseEntity<Void> deactivateProduct(@PathVariable Long id) {
-        productService.deactivateProduct(id);
-        return ResponseEntity.noContent().build();
+        try {
+            productService.deactivateProduct(id);
+            return ResponseEntity.noContent().build();
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting once the retries ran out
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    private static int sliceSize(int size) {
+        return Math.max(1, Math.min(size, 100));
     }
 }
\ No newline at end of file
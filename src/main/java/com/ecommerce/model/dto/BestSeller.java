@@ -0,0 +1,5 @@
+package com.ecommerce.model.dto;
+
+// Product or category id with its delivered quantity; may overcount slightly, see SpaceSaving
+public record BestSeller(Long id, long quantity) {
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.model.dto;
+
+import java.util.List;
+
+public record CategoryDetails(Long id, String name, String description, Long parentId,
+                              List<CategorySummary> subCategories) {
+}
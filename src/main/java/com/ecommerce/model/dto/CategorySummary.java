@@ -0,0 +1,11 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.Category;
+
+public record CategorySummary(Long id, String name, String description, Long parentId) {
+    
+    public static CategorySummary from(Category category) {
+        return new CategorySummary(category.getId(), category.getName(), category.getDescription(),
+                category.getParent() != null ? category.getParent().getId() : null);
+    }
+}
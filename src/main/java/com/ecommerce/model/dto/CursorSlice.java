@@ -0,0 +1,25 @@
+package com.ecommerce.model.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One keyset page; {@code nextCursor} is null on the last page.
+ */
+public record CursorSlice<T>(List<T> content, String nextCursor) {
+    
+    /**
+     * Builds a slice from up to {@code size + 1} rows; the extra row only signals that another slice follows.
+     */
+    public static <T> CursorSlice<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorSlice<>(rows, null);
+        }
+        List<T> content = List.copyOf(rows.subList(0, size));
+        return new CursorSlice<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
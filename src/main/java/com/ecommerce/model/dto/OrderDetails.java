@@ -0,0 +1,23 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderDetails(Long id, String orderNumber, Long userId, String username, BigDecimal totalAmount,
+                           OrderStatus status, String shippingAddress, LocalDateTime createdAt,
+                           List<OrderLine> items) {
+    
+    // Used by the JPQL constructor expression for the order header; lines are loaded separately
+    public OrderDetails(Long id, String orderNumber, Long userId, String username, BigDecimal totalAmount,
+                        OrderStatus status, String shippingAddress, LocalDateTime createdAt) {
+        this(id, orderNumber, userId, username, totalAmount, status, shippingAddress, createdAt, List.of());
+    }
+    
+    public OrderDetails withItems(List<OrderLine> items) {
+        return new OrderDetails(id, orderNumber, userId, username, totalAmount, status, shippingAddress, createdAt,
+                items);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.model.dto;
+
+import java.math.BigDecimal;
+
+public record OrderLine(Long productId, String productName, Integer quantity, BigDecimal price,
+                        BigDecimal subtotal) {
+}
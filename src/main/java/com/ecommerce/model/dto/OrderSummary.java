@@ -0,0 +1,16 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderSummary(Long id, String orderNumber, Long userId, BigDecimal totalAmount, OrderStatus status,
+                           LocalDateTime createdAt) {
+    
+    public static OrderSummary from(Order order) {
+        return new OrderSummary(order.getId(), order.getOrderNumber(), order.getUser().getId(),
+                order.getTotalAmount(), order.getStatus(), order.getCreatedAt());
+    }
+}
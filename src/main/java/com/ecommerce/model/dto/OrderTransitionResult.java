@@ -0,0 +1,24 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.OrderStatus;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk status transition, with one entry per distinct order id in request order. {@code previous}
+ * is the status the order was in, or null for an unknown order.
+ */
+public record OrderTransitionResult(OrderStatus status, int requested, int applied, List<Outcome> outcomes) {
+    
+    public enum Result {
+        APPLIED,
+        // Already in the target status
+        UNCHANGED,
+        // The transition table has no move from the current status to the target
+        NOT_ALLOWED,
+        NOT_FOUND
+    }
+    
+    public record Outcome(Long orderId, OrderStatus previous, Result result) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record PaymentSummary(Long id, Long orderId, String orderNumber, BigDecimal amount, String paymentMethod,
+                             String transactionId, PaymentStatus status, LocalDateTime paymentDate) {
+    
+    public static PaymentSummary from(Payment payment) {
+        return new PaymentSummary(payment.getId(), payment.getOrder().getId(), payment.getOrder().getOrderNumber(),
+                payment.getAmount(), payment.getPaymentMethod(), payment.getTransactionId(), payment.getStatus(),
+                payment.getPaymentDate());
+    }
+}
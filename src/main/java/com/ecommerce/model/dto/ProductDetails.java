@@ -0,0 +1,7 @@
+package com.ecommerce.model.dto;
+
+import java.math.BigDecimal;
+
+public record ProductDetails(Long id, String sku, String name, String description, BigDecimal price,
+                             Integer stock, String imageUrl, Boolean active, Long categoryId, String categoryName) {
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.model.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: every row is either imported, superseded by a later row with the same sku in the same
+ * batch, or failed, and {@code errors} holds the first failures with the line each row starts on.
+ */
+public record ProductImportResult(long rows, long imported, long superseded, long failed, List<RowError> errors) {
+    
+    public record RowError(long line, String sku, String message) {
+    }
+}
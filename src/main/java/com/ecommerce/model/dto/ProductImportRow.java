@@ -0,0 +1,10 @@
+package com.ecommerce.model.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One product of a bulk import, keyed by {@code sku}; the same fields name the CSV columns and NDJSON properties.
+ */
+public record ProductImportRow(String sku, String name, String description, BigDecimal price, Integer stock,
+                               Long categoryId, String imageUrl, Boolean isActive) {
+}
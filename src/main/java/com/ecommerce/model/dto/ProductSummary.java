@@ -0,0 +1,14 @@
+package com.ecommerce.model.dto;
+
+import com.ecommerce.model.entity.Product;
+
+import java.math.BigDecimal;
+
+public record ProductSummary(Long id, String name, BigDecimal price, Integer stock, Long categoryId,
+                             String imageUrl) {
+    
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(product.getId(), product.getName(), product.getPrice(), product.getStock(),
+                product.getCategory() != null ? product.getCategory().getId() : null, product.getImageUrl());
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.model.dto;
+
+/**
+ * One entry of a stock sync: either an absolute {@code stock} level or a {@code delta} to add, never both.
+ */
+public record StockAdjustment(Long productId, Integer stock, Integer delta) {
+    
+    public boolean isAbsolute() {
+        return stock != null;
+    }
+}
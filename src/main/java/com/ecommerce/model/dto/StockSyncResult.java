@@ -0,0 +1,11 @@
+package com.ecommerce.model.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a stock sync. {@code invalid} holds the positions in the request of malformed entries; entries for
+ * unknown products and deltas that would take stock below zero are skipped and reported by product id.
+ */
+public record StockSyncResult(int adjustments, int applied, List<Integer> invalid, List<Long> notFound,
+                              List<Long> belowZero) {
+}
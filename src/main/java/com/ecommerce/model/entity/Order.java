@@ -23,15 +23,36 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+// Fetch plans of the two entity views. The payment is in both because an inverse one-to-one cannot be lazy, so
+// leaving it out costs a query per order; the summary has no collection, so it can be paged in SQL
+@NamedEntityGraph(name = Order.SUMMARY_GRAPH, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("payment")})
+@NamedEntityGraph(name = Order.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("payment"),
+        @NamedAttributeNode(value = "orderItems", subgraph = "items")},
+        subgraphs = {
+                @NamedSubgraph(name = "items",
+                        attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+                @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("category"))})
 public class Order {
     
+    public static final String SUMMARY_GRAPH = "Order.summary";
+    public static final String DETAIL_GRAPH = "Order.detail";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "order_number", unique = true, nullable = false, length = 50)
     private String orderNumber;
     
+    // Stale status transitions fail instead of overwriting each other; see RetryOnConflict
+    @Version
+    private Long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -53,6 +74,11 @@ public class Order {
     @Column(name = "shipping_address", columnDefinition = "TEXT")
     private String shippingAddress;
     
+    // Only written on insert; the inventory ledger flips it with a bulk update once the stock is flushed
+    @Column(name = "inventory_flushed", nullable = false, updatable = false)
+    @Builder.Default
+    private Boolean inventoryFlushed = true;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -89,6 +115,6 @@ public class Order {
     }
     
     public boolean canBeCancelled() {
-        return status == OrderStatus.PENDING || status == OrderStatus.CONFIRMED;
+        return status.canTransitionTo(OrderStatus.CANCELLED);
     }
 }
\ No newline at end of file
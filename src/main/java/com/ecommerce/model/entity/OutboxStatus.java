@@ -0,0 +1,7 @@
+package com.ecommerce.model.entity;
+
+public enum OutboxStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
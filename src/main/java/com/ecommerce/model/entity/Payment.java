@@ -27,6 +27,9 @@ public class Payment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Version
+    private Long version;
+    
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false, unique = true)
     private Order order;
@@ -37,7 +40,7 @@ public class Payment {
     @Column(name = "payment_method", nullable = false, length = 50)
     private String paymentMethod;
     
-    @Column(name = "transaction_id", length = 100)
+    @Column(name = "transaction_id", length = 100, unique = true)
     private String transactionId;
     
     @Enumerated(EnumType.STRING)
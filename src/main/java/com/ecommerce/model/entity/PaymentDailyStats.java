@@ -0,0 +1,40 @@
+package com.ecommerce.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "payment_daily_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDailyStats {
+    
+    @EmbeddedId
+    private Key id;
+    
+    @Column(name = "completed_count", nullable = false)
+    private Long completedCount;
+    
+    @Column(name = "completed_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal completedAmount;
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        
+        @Column(name = "stat_date", nullable = false)
+        private LocalDate statDate;
+        
+        @Column(name = "payment_method", nullable = false, length = 50)
+        private String paymentMethod;
+    }
+}
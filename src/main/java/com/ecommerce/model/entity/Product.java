@@ -15,6 +15,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Not in the second-level cache: stock changes with every order through JDBC batches Hibernate never sees;
+// the details read model is cached in ProductCache instead
 @Entity
 @Table(name = "products", 
        indexes = {
@@ -33,6 +35,14 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Natural key of bulk imports; null for products created one at a time
+    @Column(unique = true, length = 64)
+    private String sku;
+    
+    // Also incremented by the stock updates, so an entity update cannot write back a stale stock
+    @Version
+    private Long version;
+    
     @Column(nullable = false, length = 200)
     private String name;
     
@@ -1,17 +1,27 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.config.SecondLevelCacheConfig;
+import com.ecommerce.model.dto.CategorySummary;
 import com.ecommerce.model.entity.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
+    // The hinted finders keep their result ids in the query cache until the next write to categories. Call them
+    // from @ReadFromPrimary methods, so results read from a lagging replica are never cached
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.CATEGORY_QUERIES)})
     Optional<Category> findByName(String name);
     
     List<Category> findByIsActiveTrue();
@@ -20,12 +30,24 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     List<Category> findByParentAndIsActiveTrue(Category parent);
     
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.CATEGORY_QUERIES)})
     @Query("SELECT c FROM Category c WHERE c.parent IS NULL AND c.isActive = true")
     List<Category> findRootCategories();
     
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.CATEGORY_QUERIES)})
     @Query("SELECT c FROM Category c WHERE c.parent.id = :parentId AND c.isActive = true")
     List<Category> findSubCategoriesByParentId(@Param("parentId") Long parentId);
     
     @Query("SELECT c FROM Category c LEFT JOIN FETCH c.subCategories WHERE c.id = :id")
     Optional<Category> findByIdWithSubCategories(@Param("id") Long id);
+    
+    @Query("SELECT new com.ecommerce.model.dto.CategorySummary(c.id, c.name, c.description, p.id) " +
+           "FROM Category c LEFT JOIN c.parent p WHERE c.isActive = true ORDER BY c.id")
+    List<CategorySummary> findActiveCategorySummaries();
+    
+    // Every category id, active or not, for validating bulk imports in memory
+    @Query("SELECT c.id FROM Category c")
+    Set<Long> findAllIds();
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.entity.DailyOrderStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyOrderStatsRepository extends JpaRepository<DailyOrderStats, LocalDate> {
+    
+    @Query("SELECT MAX(s.statDate) FROM DailyOrderStats s")
+    Optional<LocalDate> findLastClosedDate();
+    
+    @Query("SELECT s FROM DailyOrderStats s WHERE s.statDate >= :from AND s.statDate < :to ORDER BY s.statDate DESC")
+    List<DailyOrderStats> findBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Modifying
+    @Query("DELETE FROM DailyOrderStats s WHERE s.statDate >= :from AND s.statDate < :to")
+    int deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Closes the days of [from, to): aggregates of orders created in that range, one row per day with orders.
+    // Names the table it writes so Hibernate does not clear the whole second-level cache
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_order_stats"))
+    @Query(value = """
+        INSERT INTO daily_order_stats (stat_date, order_count, total_revenue)
+        SELECT CAST(o.created_at AS DATE), COUNT(*), SUM(o.total_amount)
+        FROM orders o
+        WHERE o.created_at >= :from AND o.created_at < :to
+        GROUP BY CAST(o.created_at AS DATE)
+        """, nativeQuery = true)
+    int insertAggregates(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query("UPDATE DailyOrderStats s SET s.orderCount = s.orderCount - 1, s.totalRevenue = s.totalRevenue - :amount " +
+           "WHERE s.statDate = :date")
+    int subtractOrder(@Param("date") LocalDate date, @Param("amount") BigDecimal amount);
+}
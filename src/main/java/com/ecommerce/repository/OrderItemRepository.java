@@ -1,5 +1,6 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.model.dto.OrderLine;
 import com.ecommerce.model.entity.Order;
 import com.ecommerce.model.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,6 +20,16 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId")
     List<OrderItem> findByOrderId(@Param("orderId") Long orderId);
     
+    @Query("SELECT new com.ecommerce.model.dto.OrderLine(p.id, p.name, oi.quantity, oi.price, oi.subtotal) " +
+           "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id = :orderId ORDER BY oi.id")
+    List<OrderLine> findLinesByOrderId(@Param("orderId") Long orderId);
+    
+    @Query("SELECT oi.product.id, SUM(oi.quantity) " +
+           "FROM OrderItem oi " +
+           "WHERE oi.order.inventoryFlushed = false " +
+           "GROUP BY oi.product.id")
+    List<Object[]> findUnflushedQuantitiesByProduct();
+    
     @Query("SELECT oi.product.id, SUM(oi.quantity) as totalQuantity " +
            "FROM OrderItem oi " +
            "WHERE oi.order.status = 'DELIVERED' " +
@@ -30,4 +43,24 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
            "GROUP BY oi.product.category.id " +
            "ORDER BY totalQuantity DESC")
     List<Object[]> findBestSellingCategories();
+    
+    // Rows of [productId, categoryId, quantity, order updatedAt] for feeding the best-seller rankings
+    @Query("SELECT oi.product.id, oi.product.category.id, oi.quantity, oi.order.updatedAt FROM OrderItem oi " +
+           "WHERE oi.order.id = :orderId")
+    List<Object[]> findRankingLinesByOrderId(@Param("orderId") Long orderId);
+    
+    @Query("SELECT oi.product.id, oi.product.category.id, oi.quantity, oi.order.updatedAt FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds")
+    List<Object[]> findRankingLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
+    // Rows of [productId, total quantity] over the given orders, e.g. the stock to restore when they are cancelled
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.id IN :orderIds " +
+           "GROUP BY oi.product.id")
+    List<Object[]> sumQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds);
+    
+    // Rows of [productId, categoryId, quantity, order updatedAt]; updatedAt stands in for the delivery time
+    @Query("SELECT oi.product.id, oi.product.category.id, oi.quantity, oi.order.updatedAt " +
+           "FROM OrderItem oi " +
+           "WHERE oi.order.status = 'DELIVERED' AND oi.order.updatedAt >= :since")
+    List<Object[]> findDeliveredRankingLinesSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -1,31 +1,110 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.model.dto.OrderDetails;
+import com.ecommerce.model.dto.OrderSummary;
 import com.ecommerce.model.entity.Order;
 import com.ecommerce.model.entity.OrderStatus;
 import com.ecommerce.model.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    // Entity reads use the fetch plans declared on Order; the summary plan joins only to-one associations, so
+    // pages are still limited in SQL, and the lines load in batches of default_batch_fetch_size when touched
+    @Override
+    @EntityGraph(Order.SUMMARY_GRAPH)
+    Page<Order> findAll(Pageable pageable);
+    
+    @EntityGraph(Order.SUMMARY_GRAPH)
     Page<Order> findByUser(User user, Pageable pageable);
     
+    @EntityGraph(Order.SUMMARY_GRAPH)
     List<Order> findByStatus(OrderStatus status);
     
+    @EntityGraph(Order.SUMMARY_GRAPH)
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    @EntityGraph(Order.SUMMARY_GRAPH)
     @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC")
     Page<Order> findOrdersByUserId(@Param("userId") Long userId, Pageable pageable);
     
+    // Pages of detail views: the ids are paged in SQL, then loaded with the detail plan. Fetch joining the lines
+    // in the paged query itself would make Hibernate page in memory
+    @Query(value = "SELECT o.id FROM Order o", countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Long> findIds(Pageable pageable);
+    
+    @EntityGraph(Order.DETAIL_GRAPH)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Read models for the REST layer: only the columns each response needs, no managed entities
+    String SUMMARY = "SELECT new com.ecommerce.model.dto.OrderSummary(" +
+                     "o.id, o.orderNumber, o.user.id, o.totalAmount, o.status, o.createdAt) FROM Order o ";
+    
+    String DETAILS = "SELECT new com.ecommerce.model.dto.OrderDetails(o.id, o.orderNumber, u.id, u.username, " +
+                     "o.totalAmount, o.status, o.shippingAddress, o.createdAt) FROM Order o JOIN o.user u ";
+    
+    @Query(value = SUMMARY, countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderSummary> findSummaries(Pageable pageable);
+    
+    // Server-side cursor for exports; must be consumed and closed within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SUMMARY + "WHERE o.createdAt >= :from AND o.createdAt < :to ORDER BY o.createdAt, o.id")
+    Stream<OrderSummary> streamSummaries(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query(value = SUMMARY + "WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(SUMMARY + "WHERE o.status = :status")
+    List<OrderSummary> findSummariesByStatus(@Param("status") OrderStatus status);
+    
+    @Query(DETAILS + "WHERE o.id = :id")
+    Optional<OrderDetails> findDetailsById(@Param("id") Long id);
+    
+    @Query(DETAILS + "WHERE o.orderNumber = :orderNumber")
+    Optional<OrderDetails> findDetailsByOrderNumber(@Param("orderNumber") String orderNumber);
+    
+    // Keyset listings, newest first, backed by the (created_at DESC, id DESC) indexes; the redundant
+    // created_at <= :createdAt bound lets the database start the index scan at the cursor
+    @Query(SUMMARY + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findLatest(Limit limit);
+    
+    @Query(SUMMARY + "WHERE o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findLatestBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                        Limit limit);
+    
+    @Query(SUMMARY + "WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findLatestByUserId(@Param("userId") Long userId, Limit limit);
+    
+    @Query(SUMMARY + "WHERE o.user.id = :userId AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findLatestByUserIdBefore(@Param("userId") Long userId,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id, Limit limit);
+    
+    @EntityGraph(Order.SUMMARY_GRAPH)
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
     List<Order> findOrdersBetweenDates(@Param("startDate") LocalDateTime startDate,
                                       @Param("endDate") LocalDateTime endDate);
@@ -36,26 +115,57 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id = :id")
     Optional<Order> findByIdWithOrderItems(@Param("id") Long id);
     
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user LEFT JOIN FETCH o.orderItems WHERE o.id = :id")
+    // One query for the whole detail view, whatever the number of lines
+    @EntityGraph(Order.DETAIL_GRAPH)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
     Optional<Order> findByIdWithUserAndItems(@Param("id") Long id);
     
+    @EntityGraph(Order.SUMMARY_GRAPH)
     @Query("SELECT o FROM Order o WHERE o.status IN :statuses")
     List<Order> findByStatusIn(@Param("statuses") List<OrderStatus> statuses);
     
+    // Range predicate on created_at so the scan stays on idx_orders_created_at_id; used for days not yet rolled up
     @Query(value = """
-        SELECT DATE(o.created_at) as order_date,
+        SELECT CAST(o.created_at AS DATE) as order_date,
                COUNT(*) as total_orders,
                SUM(o.total_amount) as total_revenue
         FROM orders o
-        WHERE o.created_at >= :startDate
-        GROUP BY DATE(o.created_at)
+        WHERE o.created_at >= :from AND o.created_at < :to
+        GROUP BY CAST(o.created_at AS DATE)
         ORDER BY order_date DESC
         """, nativeQuery = true)
-    List<Object[]> getDailyOrderReport(@Param("startDate") LocalDateTime startDate);
+    List<Object[]> getDailyOrderReport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MIN(o.createdAt) FROM Order o")
+    Optional<LocalDateTime> findFirstCreatedAt();
     
     @Query("SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
     Long countOrdersByUserId(@Param("userId") Long userId);
     
     @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.user.id = :userId AND o.status = 'DELIVERED'")
     Double getTotalSpentByUserId(@Param("userId") Long userId);
+    
+    // Native updates name the tables they write; otherwise Hibernate clears the whole second-level cache
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "orders"))
+    @Query(value = "UPDATE orders SET inventory_flushed = TRUE WHERE id IN (:ids)", nativeQuery = true)
+    int markInventoryFlushed(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "orders"))
+    @Query(value = "UPDATE orders SET inventory_flushed = TRUE WHERE inventory_flushed = FALSE", nativeQuery = true)
+    int markAllInventoryFlushed();
+    
+    // Rows of [id, status], locked in id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Object[]> findStatusForUpdate(@Param("ids") Collection<Long> ids);
+    
+    // Moves the orders that are in one of the from statuses, normally status.predecessors(), and skips the others.
+    // Increments the version like an entity update, so a concurrent transition of the same orders fails and retries
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.version = o.version + 1, o.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE o.id IN :ids AND o.status IN :from")
+    int transitionStatus(@Param("ids") Collection<Long> ids, @Param("from") Collection<OrderStatus> from,
+                         @Param("status") OrderStatus status);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.entity.PaymentDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Aggregates over the rollup rows: one row per payment day and method, independent of the payments table size
+@Repository
+public interface PaymentDailyStatsRepository extends JpaRepository<PaymentDailyStats, PaymentDailyStats.Key>,
+        PaymentDailyStatsRepositoryCustom {
+    
+    @Query("SELECT COALESCE(SUM(s.completedCount), 0) FROM PaymentDailyStats s")
+    Long countCompletedPayments();
+    
+    @Query("SELECT SUM(s.completedAmount) FROM PaymentDailyStats s")
+    Double getTotalRevenue();
+    
+    @Query("SELECT s.id.paymentMethod, SUM(s.completedCount) as count, SUM(s.completedAmount) as total " +
+           "FROM PaymentDailyStats s " +
+           "GROUP BY s.id.paymentMethod " +
+           "HAVING SUM(s.completedCount) > 0 " +
+           "ORDER BY total DESC")
+    List<Object[]> getPaymentMethodStatistics();
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.entity.PaymentDailyStats;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Incremental maintenance of the payment rollups. Increments are upserts, so the first completed payment of a
+ * day and method creates its row; concurrent transactions only serialize on that one row.
+ */
+public interface PaymentDailyStatsRepositoryCustom {
+    
+    record Delta(long count, BigDecimal amount) {
+    }
+    
+    void increment(Map<PaymentDailyStats.Key, Delta> deltas);
+    
+    // Replaces every rollup row with aggregates of the payments table; returns the number of rows written
+    int rebuild();
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.entity.PaymentDailyStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class PaymentDailyStatsRepositoryImpl implements PaymentDailyStatsRepositoryCustom {
+    
+    // PostgreSQL: ON CONFLICT is atomic against concurrent inserts of the same day and method
+    private static final String POSTGRES_UPSERT_SQL = """
+        INSERT INTO payment_daily_stats (stat_date, payment_method, completed_count, completed_amount)
+        VALUES (?, ?, ?, ?)
+        ON CONFLICT (stat_date, payment_method) DO UPDATE
+        SET completed_count = payment_daily_stats.completed_count + EXCLUDED.completed_count,
+            completed_amount = payment_daily_stats.completed_amount + EXCLUDED.completed_amount
+        """;
+    
+    // Standard MERGE for other databases (H2 in tests and benchmarks), one row per statement so that a row that
+    // lost an insert race can be run again on its own
+    private static final String MERGE_SQL = """
+        MERGE INTO payment_daily_stats s
+        USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR(50)), CAST(? AS BIGINT), CAST(? AS DECIMAL(19,2))))
+            AS d (stat_date, payment_method, completed_count, completed_amount)
+        ON s.stat_date = d.stat_date AND s.payment_method = d.payment_method
+        WHEN MATCHED THEN UPDATE SET completed_count = s.completed_count + d.completed_count,
+                                     completed_amount = s.completed_amount + d.completed_amount
+        WHEN NOT MATCHED THEN INSERT (stat_date, payment_method, completed_count, completed_amount)
+            VALUES (d.stat_date, d.payment_method, d.completed_count, d.completed_amount)
+        """;
+    
+    private static final String REBUILD_SQL = """
+        INSERT INTO payment_daily_stats (stat_date, payment_method, completed_count, completed_amount)
+        SELECT CAST(payment_date AS DATE), payment_method, COUNT(*), SUM(amount)
+        FROM payments
+        WHERE status = 'COMPLETED' AND payment_date IS NOT NULL
+        GROUP BY CAST(payment_date AS DATE), payment_method
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private volatile String upsertSql;
+    
+    @Override
+    public void increment(Map<PaymentDailyStats.Key, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<PaymentDailyStats.Key, Delta>> rows = new ArrayList<>(deltas.entrySet());
+        String sql = upsertSql();
+        if (sql.equals(POSTGRES_UPSERT_SQL)) {
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+                ps.setDate(1, Date.valueOf(row.getKey().getStatDate()));
+                ps.setString(2, row.getKey().getPaymentMethod());
+                ps.setLong(3, row.getValue().count());
+                ps.setBigDecimal(4, row.getValue().amount());
+            });
+            return;
+        }
+        for (Map.Entry<PaymentDailyStats.Key, Delta> row : rows) {
+            Object[] args = {Date.valueOf(row.getKey().getStatDate()), row.getKey().getPaymentMethod(),
+                    row.getValue().count(), row.getValue().amount()};
+            try {
+                jdbcTemplate.update(sql, args);
+            } catch (DuplicateKeyException e) {
+                // MERGE is not atomic: a concurrent transaction inserted the same day and method first, and only
+                // this statement failed. Run again, it now matches that row and updates it
+                jdbcTemplate.update(sql, args);
+            }
+        }
+    }
+    
+    @Override
+    public int rebuild() {
+        jdbcTemplate.update("DELETE FROM payment_daily_stats");
+        return jdbcTemplate.update(REBUILD_SQL);
+    }
+    
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsertSql = "PostgreSQL".equals(database) ? POSTGRES_UPSERT_SQL : MERGE_SQL;
+        }
+        return upsertSql;
+    }
+}
@@ -1,16 +1,21 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.model.dto.PaymentSummary;
 import com.ecommerce.model.entity.Order;
 import com.ecommerce.model.entity.Payment;
 import com.ecommerce.model.entity.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -22,10 +27,40 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p WHERE p.order.id = :orderId")
     Optional<Payment> findByOrderId(@Param("orderId") Long orderId);
     
+    boolean existsByTransactionId(String transactionId);
+    
     @Query("SELECT p FROM Payment p WHERE p.status = 'COMPLETED' AND p.paymentDate BETWEEN :startDate AND :endDate")
     List<Payment> findCompletedPaymentsBetweenDates(@Param("startDate") LocalDateTime startDate,
                                                    @Param("endDate") LocalDateTime endDate);
     
+    // Read models for the REST layer: only the columns each response needs, no managed entities
+    String SUMMARY = "SELECT new com.ecommerce.model.dto.PaymentSummary(p.id, o.id, o.orderNumber, p.amount, " +
+                     "p.paymentMethod, p.transactionId, p.status, p.paymentDate) FROM Payment p JOIN p.order o ";
+    
+    @Query(SUMMARY + "ORDER BY p.id")
+    List<PaymentSummary> findAllSummaries();
+    
+    // Server-side cursor for exports; must be consumed and closed within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SUMMARY + "ORDER BY p.id")
+    Stream<PaymentSummary> streamSummaries();
+    
+    @Query(SUMMARY + "WHERE p.id = :id")
+    Optional<PaymentSummary> findSummaryById(@Param("id") Long id);
+    
+    @Query(SUMMARY + "WHERE o.id = :orderId")
+    Optional<PaymentSummary> findSummaryByOrderId(@Param("orderId") Long orderId);
+    
+    @Query(SUMMARY + "WHERE p.transactionId = :transactionId")
+    Optional<PaymentSummary> findSummaryByTransactionId(@Param("transactionId") String transactionId);
+    
+    @Query(SUMMARY + "WHERE p.status = :status")
+    List<PaymentSummary> findSummariesByStatus(@Param("status") PaymentStatus status);
+    
+    @Query(SUMMARY + "WHERE p.status = 'COMPLETED' AND p.paymentDate BETWEEN :startDate AND :endDate")
+    List<PaymentSummary> findCompletedSummariesBetweenDates(@Param("startDate") LocalDateTime startDate,
+                                                            @Param("endDate") LocalDateTime endDate);
+    
     @Query("SELECT COUNT(p) FROM Payment p WHERE p.status = 'COMPLETED'")
     Long countCompletedPayments();
     
@@ -1,19 +1,31 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.model.dto.ProductDetails;
+import com.ecommerce.model.dto.ProductSummary;
 import com.ecommerce.model.entity.Category;
 import com.ecommerce.model.entity.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     
     Page<Product> findByIsActiveTrue(Pageable pageable);
     
@@ -32,12 +44,81 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.category.id = :categoryId")
     Page<Product> findActiveProductsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
     
+    // Read models for the REST layer: only the columns each response needs, no managed entities
+    String SUMMARY = "SELECT new com.ecommerce.model.dto.ProductSummary(" +
+                     "p.id, p.name, p.price, p.stock, p.category.id, p.imageUrl) FROM Product p ";
+    
+    @Query(value = SUMMARY + "WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductSummary> findActiveSummaries(Pageable pageable);
+    
+    // Server-side cursor over every product, active or not, for exports; consume within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SUMMARY + "ORDER BY p.id")
+    Stream<ProductSummary> streamSummaries();
+    
+    @Query(value = SUMMARY + "WHERE p.isActive = true AND p.category.id = :categoryId",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.category.id = :categoryId")
+    Page<ProductSummary> findActiveSummariesByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+    
+    @Query(value = SUMMARY + "WHERE p.isActive = true AND p.name LIKE %:keyword%",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.name LIKE %:keyword%")
+    Page<ProductSummary> findActiveSummariesByNameContaining(@Param("keyword") String keyword, Pageable pageable);
+    
+    @Query(value = SUMMARY + "WHERE p.isActive = true AND p.price BETWEEN :minPrice AND :maxPrice",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.price BETWEEN :minPrice AND :maxPrice")
+    Page<ProductSummary> findActiveSummariesByPriceRange(@Param("minPrice") BigDecimal minPrice,
+                                                         @Param("maxPrice") BigDecimal maxPrice,
+                                                         Pageable pageable);
+    
+    @Query(SUMMARY + "WHERE p.isActive = true AND p.stock <= :threshold ORDER BY p.stock ASC")
+    List<ProductSummary> findLowStockSummaries(@Param("threshold") Integer threshold);
+    
+    @Query("SELECT new com.ecommerce.model.dto.ProductDetails(p.id, p.sku, p.name, p.description, p.price, " +
+           "p.stock, p.imageUrl, p.isActive, c.id, c.name) FROM Product p JOIN p.category c WHERE p.id = :id")
+    Optional<ProductDetails> findDetailsById(@Param("id") Long id);
+    
+    @Query(SUMMARY + "WHERE p.isActive = true AND p.category.id IN :categoryIds AND p.id > :afterId ORDER BY p.id")
+    List<ProductSummary> findActiveSummariesByCategoryIdsAfter(@Param("categoryIds") Collection<Long> categoryIds,
+                                                               @Param("afterId") Long afterId, Limit limit);
+    
+    // Keyset listings: the cursor carries the sort key of the last row, so no OFFSET or COUNT is needed
+    @Query(SUMMARY + "WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductSummary> findActiveSummariesAfterId(@Param("afterId") Long afterId, Limit limit);
+    
+    @Query(SUMMARY + "WHERE p.isActive = true ORDER BY p.price, p.id")
+    List<ProductSummary> findActiveSummariesOrderByPrice(Limit limit);
+    
+    // The redundant price >= :price bound lets the database start the index scan at the cursor
+    @Query(SUMMARY + "WHERE p.isActive = true AND p.price >= :price " +
+           "AND (p.price > :price OR p.id > :id) ORDER BY p.price, p.id")
+    List<ProductSummary> findActiveSummariesAfterPrice(@Param("price") BigDecimal price, @Param("id") Long id,
+                                                       Limit limit);
+    
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id AND p.isActive = true")
     Product findActiveProductByIdWithCategory(@Param("id") Long id);
     
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.stock <= :threshold ORDER BY p.stock ASC")
     List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
     
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1, " +
+           "p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id AND p.isActive = true AND p.stock >= :quantity")
+    int decreaseStockIfAvailable(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.version = p.version + 1, " +
+           "p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int increaseStockBy(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    // Rows are locked in id order, the order stock updates take their locks in
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Object[]> findStockForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
     @Query(value = """
         SELECT p.id, p.name, p.price, p.stock, c.name as category_name
         FROM products p
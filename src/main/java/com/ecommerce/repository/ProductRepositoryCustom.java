@@ -0,0 +1,31 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.dto.ProductImportRow;
+import com.ecommerce.model.dto.ProductSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product queries that are easier to express in plain SQL. Stock updates run as a single JDBC batch and
+ * update rows in ascending product id order so that concurrent carts lock products in the same order.
+ */
+public interface ProductRepositoryCustom {
+    
+    // PostgreSQL full-text search ranked by relevance; tsQuery is a to_tsquery expression
+    Page<ProductSummary> searchActiveSummaries(String tsQuery, Pageable pageable);
+    
+    // Returns the ids whose decrement was rejected for insufficient stock
+    List<Long> decreaseStockInBatch(Map<Long, Integer> quantities);
+    
+    // Returns the ids that matched no product
+    List<Long> increaseStockInBatch(Map<Long, Integer> quantities);
+    
+    // Overwrites the stock of the given products; PostgreSQL sets them all with one UPDATE ... FROM (VALUES ...)
+    void setStockInBatch(Map<Long, Integer> stock);
+    
+    // Inserts new skus and overwrites existing ones in one batch; updateStock false keeps the stock of existing rows
+    void upsertBySku(List<ProductImportRow> rows, boolean updateStock);
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.dto.ProductImportRow;
+import com.ecommerce.model.dto.ProductSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    
+    // Every write of the stock increments the version, so a concurrent entity update of the product fails
+    // instead of writing back the stock it read
+    private static final String DECREASE_STOCK_SQL = "UPDATE products SET stock = stock - ?, version = version + 1, "
+            + "updated_at = ? WHERE id = ? AND is_active = true AND stock >= ?";
+    
+    private static final String INCREASE_STOCK_SQL =
+            "UPDATE products SET stock = stock + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    
+    private static final String SET_STOCK_SQL =
+            "UPDATE products SET stock = ?, version = version + 1, updated_at = ? WHERE id = ?";
+    
+    // PostgreSQL: one statement per call instead of one per product; %s is the list of (id, stock) rows
+    private static final String POSTGRES_SET_STOCK_SQL = """
+        UPDATE products p SET stock = v.stock, version = p.version + 1, updated_at = ?
+        FROM (VALUES %s) AS v (id, stock)
+        WHERE p.id = v.id
+        """;
+    
+    // Full-text search over the search_vector column (PostgreSQL only), best matches first
+    private static final String SEARCH_SQL = """
+        SELECT p.id, p.name, p.price, p.stock, p.category_id, p.image_url
+        FROM products p, to_tsquery('english', ?) q
+        WHERE p.is_active = true AND p.search_vector @@ q
+        ORDER BY ts_rank(p.search_vector, q) DESC, p.id
+        LIMIT ? OFFSET ?
+        """;
+    
+    private static final String SEARCH_COUNT_SQL =
+            "SELECT COUNT(*) FROM products p WHERE p.is_active = true AND p.search_vector @@ to_tsquery('english', ?)";
+    
+    // PostgreSQL: ON CONFLICT is atomic against concurrent imports of the same sku; %s is the stock assignment
+    private static final String POSTGRES_UPSERT_SQL = """
+        INSERT INTO products (sku, name, description, price, stock, category_id, image_url, is_active,
+                              created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (sku) DO UPDATE
+        SET name = EXCLUDED.name, description = EXCLUDED.description, price = EXCLUDED.price, %s
+            category_id = EXCLUDED.category_id, image_url = EXCLUDED.image_url, is_active = EXCLUDED.is_active,
+            version = products.version + 1, updated_at = EXCLUDED.updated_at
+        """;
+    
+    // Standard MERGE for other databases (H2 in tests and benchmarks)
+    private static final String MERGE_SQL = """
+        MERGE INTO products p
+        USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(200)), CAST(? AS VARCHAR), CAST(? AS DECIMAL(10,2)),
+                       CAST(? AS INTEGER), CAST(? AS BIGINT), CAST(? AS VARCHAR(500)), CAST(? AS BOOLEAN),
+                       CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+            AS d (sku, name, description, price, stock, category_id, image_url, is_active, created_at, updated_at)
+        ON p.sku = d.sku
+        WHEN MATCHED THEN UPDATE
+            SET name = d.name, description = d.description, price = d.price, %s category_id = d.category_id,
+                image_url = d.image_url, is_active = d.is_active, version = p.version + 1, updated_at = d.updated_at
+        WHEN NOT MATCHED THEN INSERT (sku, name, description, price, stock, category_id, image_url, is_active,
+                                      created_at, updated_at)
+            VALUES (d.sku, d.name, d.description, d.price, d.stock, d.category_id, d.image_url, d.is_active,
+                    d.created_at, d.updated_at)
+        """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private volatile Boolean postgres;
+    
+    @Override
+    public Page<ProductSummary> searchActiveSummaries(String tsQuery, Pageable pageable) {
+        List<ProductSummary> content = jdbcTemplate.query(SEARCH_SQL, (rs, rowNum) -> new ProductSummary(
+                rs.getLong("id"), rs.getString("name"), rs.getBigDecimal("price"), rs.getInt("stock"),
+                rs.getLong("category_id"), rs.getString("image_url")),
+                tsQuery, pageable.getPageSize(), pageable.getOffset());
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> jdbcTemplate.queryForObject(SEARCH_COUNT_SQL, Long.class, tsQuery));
+    }
+    
+    @Override
+    public List<Long> decreaseStockInBatch(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<Long, Integer>> rows = inProductIdOrder(quantities);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] updated = jdbcTemplate.batchUpdate(DECREASE_STOCK_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, row.getKey());
+            ps.setInt(4, row.getValue());
+        })[0];
+        return unaffected(rows, updated);
+    }
+    
+    @Override
+    public List<Long> increaseStockInBatch(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        List<Map.Entry<Long, Integer>> rows = inProductIdOrder(quantities);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] updated = jdbcTemplate.batchUpdate(INCREASE_STOCK_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, row.getKey());
+        })[0];
+        return unaffected(rows, updated);
+    }
+    
+    @Override
+    public void setStockInBatch(Map<Long, Integer> stock) {
+        if (stock.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> rows = inProductIdOrder(stock);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (!isPostgres()) {
+            jdbcTemplate.batchUpdate(SET_STOCK_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setInt(1, row.getValue());
+                ps.setTimestamp(2, now);
+                ps.setLong(3, row.getKey());
+            });
+            return;
+        }
+        String values = String.join(", ",
+                Collections.nCopies(rows.size(), "(CAST(? AS BIGINT), CAST(? AS INTEGER))"));
+        jdbcTemplate.update(POSTGRES_SET_STOCK_SQL.formatted(values), ps -> {
+            ps.setTimestamp(1, now);
+            int index = 2;
+            for (Map.Entry<Long, Integer> row : rows) {
+                ps.setLong(index++, row.getKey());
+                ps.setInt(index++, row.getValue());
+            }
+        });
+    }
+    
+    @Override
+    public void upsertBySku(List<ProductImportRow> rows, boolean updateStock) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = isPostgres()
+                ? POSTGRES_UPSERT_SQL.formatted(updateStock ? "stock = EXCLUDED.stock," : "")
+                : MERGE_SQL.formatted(updateStock ? "stock = d.stock," : "");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.sku());
+            ps.setString(2, row.name());
+            ps.setString(3, row.description());
+            ps.setBigDecimal(4, row.price());
+            ps.setInt(5, row.stock());
+            ps.setLong(6, row.categoryId());
+            ps.setString(7, row.imageUrl());
+            ps.setBoolean(8, row.isActive() == null || row.isActive());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+    }
+    
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equals(database);
+        }
+        return postgres;
+    }
+    
+    private List<Map.Entry<Long, Integer>> inProductIdOrder(Map<Long, Integer> quantities) {
+        return new ArrayList<>(new TreeMap<>(quantities).entrySet());
+    }
+    
+    private List<Long> unaffected(List<Map.Entry<Long, Integer>> rows, int[] updated) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                ids.add(rows.get(i).getKey());
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.BestSeller;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-K ranking of one dimension (products or categories) by delivered quantity. All-time counts live in one
+ * {@link SpaceSaving} summary; windowed counts in hourly summaries covering the longest window, which
+ * {@link #refreshWindows(long)} periodically merges into immutable per-window rankings. Reads never merge
+ * buckets, so they cost O(limit) regardless of how many ids or deliveries there are. Recording into an already
+ * closed hour, such as a return subtracted from the hour of its delivery, makes the next refresh merge the closed
+ * hours again.
+ */
+public final class BestSellerRanking {
+    
+    public enum Window {
+        LAST_24H("24h", 24),
+        LAST_7D("7d", 24 * 7),
+        ALL("all", 0);
+        
+        private final String label;
+        private final int hours;
+        
+        Window(String label, int hours) {
+            this.label = label;
+            this.hours = hours;
+        }
+        
+        public static Window of(String label) {
+            for (Window window : values()) {
+                if (window.label.equals(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported window: " + label);
+        }
+    }
+    
+    private static final int BUCKETS = Window.LAST_7D.hours;
+    
+    private final int capacity;
+    private final SpaceSaving allTime;
+    private final SpaceSaving[] hourly = new SpaceSaving[BUCKETS];
+    private final long[] bucketHours = new long[BUCKETS];
+    private volatile Map<Window, List<BestSeller>> windows = Map.of(Window.LAST_24H, List.of(), Window.LAST_7D, List.of());
+    private Map<Window, Map<Long, Long>> closedTotals = Map.of();
+    private boolean dirty;
+    private boolean closedChanged;
+    private long refreshedHour = -1;
+    
+    public BestSellerRanking(int capacity) {
+        this.capacity = capacity;
+        this.allTime = new SpaceSaving(capacity);
+        for (int i = 0; i < BUCKETS; i++) {
+            hourly[i] = new SpaceSaving(capacity);
+            bucketHours[i] = -1;
+        }
+    }
+    
+    // epochHour is the hour (since the epoch) of the delivery; deliveries older than the longest window only count all-time
+    public synchronized void record(long id, long quantity, long epochHour) {
+        allTime.add(id, quantity);
+        recordWindowed(id, quantity, epochHour);
+    }
+    
+    public synchronized void recordAllTime(long id, long quantity) {
+        allTime.add(id, quantity);
+    }
+    
+    public synchronized void recordWindowed(long id, long quantity, long epochHour) {
+        int index = (int) (epochHour % BUCKETS);
+        if (bucketHours[index] != epochHour) {
+            if (bucketHours[index] > epochHour) {
+                return;
+            }
+            hourly[index].clear();
+            bucketHours[index] = epochHour;
+        }
+        hourly[index].add(id, quantity);
+        dirty = true;
+        closedChanged |= epochHour < refreshedHour;
+    }
+    
+    public List<BestSeller> top(Window window, int limit) {
+        if (window == Window.ALL) {
+            synchronized (this) {
+                return allTime.top(limit);
+            }
+        }
+        List<BestSeller> ranking = windows.get(window);
+        return ranking.subList(0, Math.min(limit, ranking.size()));
+    }
+    
+    /**
+     * Rebuilds the windowed rankings if anything was recorded or the hour changed since the last refresh; until
+     * then windowed reads return the previous rankings. The closed hours of each window are merged once per hour
+     * and kept as their top {@code capacity} totals, so a refresh within the hour only adds the current bucket.
+     */
+    public synchronized void refreshWindows(long currentHour) {
+        if (!dirty && refreshedHour == currentHour) {
+            return;
+        }
+        if (refreshedHour != currentHour || closedChanged) {
+            Map<Window, Map<Long, Long>> closed = new EnumMap<>(Window.class);
+            for (Window window : List.of(Window.LAST_24H, Window.LAST_7D)) {
+                Map<Long, Long> totals = new HashMap<>();
+                for (int i = 0; i < BUCKETS; i++) {
+                    if (bucketHours[i] > currentHour - window.hours && bucketHours[i] < currentHour) {
+                        hourly[i].forEach((id, count) -> totals.merge(id, count, Long::sum));
+                    }
+                }
+                Map<Long, Long> top = new HashMap<>();
+                ranked(totals).forEach(seller -> top.put(seller.id(), seller.quantity()));
+                closed.put(window, top);
+            }
+            closedTotals = closed;
+            closedChanged = false;
+        }
+        int current = (int) (currentHour % BUCKETS);
+        Map<Window, List<BestSeller>> rankings = new EnumMap<>(Window.class);
+        closedTotals.forEach((window, closed) -> {
+            Map<Long, Long> totals = new HashMap<>(closed);
+            if (bucketHours[current] == currentHour) {
+                hourly[current].forEach((id, count) -> totals.merge(id, count, Long::sum));
+            }
+            rankings.put(window, ranked(totals));
+        });
+        windows = rankings;
+        dirty = false;
+        refreshedHour = currentHour;
+    }
+    
+    private List<BestSeller> ranked(Map<Long, Long> totals) {
+        List<BestSeller> ranking = new ArrayList<>(totals.size());
+        totals.forEach((id, count) -> ranking.add(new BestSeller(id, count)));
+        ranking.sort(Comparator.comparingLong(BestSeller::quantity).reversed().thenComparing(BestSeller::id));
+        return List.copyOf(ranking.subList(0, Math.min(capacity, ranking.size())));
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ReadFromPrimary;
+import com.ecommerce.model.dto.BestSeller;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.repository.OrderItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Best-selling products and categories by delivered quantity, answered from in-memory rankings. Orders are
+ * counted when {@link OrderService#updateOrderStatus} or {@link OrderTransitions} moves them to DELIVERED and
+ * subtracted when they leave it, once the transaction commits. A return is subtracted from the hour the order was
+ * delivered in, taken from its {@code updatedAt} as on startup, so it leaves the windows that counted the delivery.
+ * The rankings are loaded from the database on
+ * startup and are local to the instance: deliveries recorded by other instances show up after their next restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class BestSellers {
+    
+    private final OrderItemRepository orderItemRepository;
+    
+    @Value("${best-sellers.capacity:1000}")
+    private int capacity;
+    
+    private volatile BestSellerRanking products = new BestSellerRanking(1);
+    private volatile BestSellerRanking categories = new BestSellerRanking(1);
+    
+    public List<BestSeller> topProducts(BestSellerRanking.Window window, int limit) {
+        return products.top(window, limit);
+    }
+    
+    public List<BestSeller> topCategories(BestSellerRanking.Window window, int limit) {
+        return categories.top(window, limit);
+    }
+    
+    // Called within the transaction that changes the order status, before the change, so the lines still carry the
+    // updatedAt of the delivery
+    public void statusChanged(Long orderId, OrderStatus previous, OrderStatus status) {
+        int sign = sign(previous, status);
+        if (sign != 0) {
+            recordAfterCommit(orderItemRepository.findRankingLinesByOrderId(orderId), sign);
+        }
+    }
+    
+    // Bulk transitions: orders that all moved from previous to status, with one query for their lines
+    public void statusChanged(Collection<Long> orderIds, OrderStatus previous, OrderStatus status) {
+        int sign = sign(previous, status);
+        if (sign != 0 && !orderIds.isEmpty()) {
+            recordAfterCommit(orderItemRepository.findRankingLinesByOrderIdIn(orderIds), sign);
+        }
+    }
+    
+    private static int sign(OrderStatus previous, OrderStatus status) {
+        if (previous == status) {
+            return 0;
+        }
+        return status == OrderStatus.DELIVERED ? 1 : previous == OrderStatus.DELIVERED ? -1 : 0;
+    }
+    
+    private void recordAfterCommit(List<Object[]> lines, int sign) {
+        Runnable record = () -> {
+            long now = epochHour(LocalDateTime.now());
+            BestSellerRanking products = this.products;
+            BestSellerRanking categories = this.categories;
+            for (Object[] line : lines) {
+                long quantity = sign * ((Number) line[2]).longValue();
+                long hour = sign > 0 ? now : epochHour((LocalDateTime) line[3]);
+                products.record((Long) line[0], quantity, hour);
+                categories.record((Long) line[1], quantity, hour);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${best-sellers.refresh-interval-ms:1000}")
+    public void refresh() {
+        long hour = epochHour(LocalDateTime.now());
+        products.refreshWindows(hour);
+        categories.refreshWindows(hour);
+    }
+    
+    /**
+     * Seeds the rankings from the delivered orders: all-time totals with the aggregate queries, the windows
+     * with the lines of orders delivered during the longest window. Read from the primary: deliveries a replica
+     * has not replayed yet would never be counted, later ones are recorded as they commit.
+     */
+    @ReadFromPrimary
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        BestSellerRanking products = new BestSellerRanking(capacity);
+        BestSellerRanking categories = new BestSellerRanking(capacity);
+        orderItemRepository.findBestSellingProducts()
+                .forEach(row -> products.recordAllTime((Long) row[0], ((Number) row[1]).longValue()));
+        orderItemRepository.findBestSellingCategories()
+                .forEach(row -> categories.recordAllTime((Long) row[0], ((Number) row[1]).longValue()));
+        
+        List<Object[]> recent = orderItemRepository.findDeliveredRankingLinesSince(LocalDateTime.now().minus(Duration.ofDays(7)));
+        for (Object[] line : recent) {
+            long quantity = ((Number) line[2]).longValue();
+            long hour = epochHour((LocalDateTime) line[3]);
+            products.recordWindowed((Long) line[0], quantity, hour);
+            categories.recordWindowed((Long) line[1], quantity, hour);
+        }
+        this.products = products;
+        this.categories = categories;
+        refresh();
+        log.info("Loaded best-seller rankings with {} recent order lines", recent.size());
+    }
+    
+    private static long epochHour(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 3600;
+    }
+}
@@ -1,13 +1,23 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.ReadFromPrimary;
+import com.ecommerce.model.dto.CategoryDetails;
+import com.ecommerce.model.dto.CategorySummary;
 import com.ecommerce.model.entity.Category;
 import com.ecommerce.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
@@ -15,55 +25,132 @@ import java.util.Optional;
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeLoader categoryTreeLoader;
+    
+    // Copy-on-write snapshot of the active hierarchy: built off to the side and published as a whole, never
+    // modified in place. Writes on this instance bump the generation so the next read rebuilds; writes on other
+    // instances are picked up by the periodic refresh
+    private final AtomicReference<Snapshot> categoryTree = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    
+    private record Snapshot(CategoryTree tree, long generation) {
+    }
     
     public List<Category> findAll() {
         return categoryRepository.findAll();
     }
     
-    public List<Category> findAllActive() {
-        return categoryRepository.findByIsActiveTrue();
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CategorySummary> findAllActive() {
+        return getCategoryTree().all();
     }
     
+    // Fills the second-level cache, so a miss reads from the primary like findByName
+    @ReadFromPrimary
     public Optional<Category> findById(Long id) {
         return categoryRepository.findById(id);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<CategorySummary> findActiveById(Long id) {
+        return getCategoryTree().find(id);
+    }
+    
+    // Cached query results outlive the replica lag: a name looked up on a lagging replica right after it was
+    // written would be cached as missing
+    @ReadFromPrimary
     public Optional<Category> findByName(String name) {
         return categoryRepository.findByName(name);
     }
     
-    public List<Category> findRootCategories() {
-        return categoryRepository.findRootCategories();
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CategorySummary> findRootCategories() {
+        return getCategoryTree().roots();
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CategorySummary> findSubCategories(Long parentId) {
+        return getCategoryTree().children(parentId);
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<CategoryDetails> findByIdWithSubCategories(Long id) {
+        CategoryTree tree = getCategoryTree();
+        return tree.find(id).map(category -> new CategoryDetails(category.id(), category.name(),
+                category.description(), category.parentId(), tree.children(id)));
     }
     
-    public List<Category> findSubCategories(Long parentId) {
-        return categoryRepository.findSubCategoriesByParentId(parentId);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isActiveCategory(Long id) {
+        return getCategoryTree().contains(id);
     }
     
-    public Optional<Category> findByIdWithSubCategories(Long id) {
-        return categoryRepository.findByIdWithSubCategories(id);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Set<Long> findSelfAndDescendantIds(Long id) {
+        return getCategoryTree().descendantIds(id);
+    }
+    
+    /**
+     * Rebuilds the tree so that category changes made through other application instances show up here.
+     * Runs every {@code catalog.categories.refresh-interval-ms}.
+     */
+    @Scheduled(fixedDelayString = "${catalog.categories.refresh-interval-ms:30000}",
+            initialDelayString = "${catalog.categories.refresh-interval-ms:30000}")
+    public void refreshCategoryTree() {
+        loadCategoryTree();
     }
     
     @Transactional
     public Category save(Category category) {
+        invalidateCategoryTreeAfterCommit();
         return categoryRepository.save(category);
     }
     
     @Transactional
     public Category update(Category category) {
+        invalidateCategoryTreeAfterCommit();
         return categoryRepository.save(category);
     }
     
     @Transactional
     public void deleteById(Long id) {
+        invalidateCategoryTreeAfterCommit();
         categoryRepository.deleteById(id);
     }
     
     @Transactional
     public void deactivateCategory(Long id) {
+        invalidateCategoryTreeAfterCommit();
         categoryRepository.findById(id).ifPresent(category -> {
             category.setActive(false);
             categoryRepository.save(category);
         });
     }
-}
\ No newline at end of file
+    
+    private CategoryTree getCategoryTree() {
+        Snapshot snapshot = categoryTree.get();
+        if (snapshot != null && snapshot.generation() == generation.get()) {
+            return snapshot.tree();
+        }
+        return loadCategoryTree();
+    }
+    
+    private CategoryTree loadCategoryTree() {
+        // Read before the query: the tree then holds at least every write up to this generation
+        long loadedGeneration = generation.get();
+        Snapshot loaded = new Snapshot(categoryTreeLoader.load(), loadedGeneration);
+        // Loads running side by side are harmless; one that started before a later write never replaces the
+        // tree that includes it
+        return categoryTree.accumulateAndGet(loaded, (current, next) ->
+                current != null && current.generation() > next.generation() ? current : next).tree();
+    }
+    
+    private void invalidateCategoryTreeAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                generation.incrementAndGet();
+            }
+        });
+    }
+}
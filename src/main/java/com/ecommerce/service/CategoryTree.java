@@ -0,0 +1,95 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.CategorySummary;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the active category hierarchy with parent to children adjacency and the
+ * precomputed set of descendant ids (including the category itself) for every category.
+ */
+public final class CategoryTree {
+    
+    private final Map<Long, CategorySummary> categories;
+    private final List<CategorySummary> all;
+    private final Map<Long, List<CategorySummary>> children;
+    private final List<CategorySummary> roots;
+    private final Map<Long, Set<Long>> descendantIds;
+    
+    private CategoryTree(Map<Long, CategorySummary> categories, Map<Long, List<CategorySummary>> children,
+                         List<CategorySummary> roots, Map<Long, Set<Long>> descendantIds) {
+        this.categories = categories;
+        this.all = List.copyOf(categories.values());
+        this.children = children;
+        this.roots = roots;
+        this.descendantIds = descendantIds;
+    }
+    
+    public static CategoryTree of(List<CategorySummary> activeCategories) {
+        Map<Long, CategorySummary> categories = new LinkedHashMap<>();
+        activeCategories.forEach(category -> categories.put(category.id(), category));
+        
+        Map<Long, List<CategorySummary>> children = new HashMap<>();
+        List<CategorySummary> roots = new ArrayList<>();
+        for (CategorySummary category : categories.values()) {
+            if (category.parentId() == null) {
+                roots.add(category);
+            } else if (categories.containsKey(category.parentId())) {
+                children.computeIfAbsent(category.parentId(), id -> new ArrayList<>()).add(category);
+            }
+            // Categories below an inactive parent are unreachable, as they are in the storefront menu
+        }
+        
+        Map<Long, Set<Long>> descendantIds = new HashMap<>();
+        for (Long id : categories.keySet()) {
+            Set<Long> ids = new LinkedHashSet<>();
+            Deque<Long> pending = new ArrayDeque<>(List.of(id));
+            while (!pending.isEmpty()) {
+                Long current = pending.pop();
+                if (ids.add(current)) {
+                    children.getOrDefault(current, List.of()).forEach(child -> pending.push(child.id()));
+                }
+            }
+            descendantIds.put(id, Collections.unmodifiableSet(ids));
+        }
+        
+        Map<Long, List<CategorySummary>> immutableChildren = new HashMap<>();
+        children.forEach((parentId, list) -> immutableChildren.put(parentId, List.copyOf(list)));
+        return new CategoryTree(Collections.unmodifiableMap(categories), immutableChildren,
+                List.copyOf(roots), descendantIds);
+    }
+    
+    public List<CategorySummary> all() {
+        return all;
+    }
+    
+    public Optional<CategorySummary> find(Long id) {
+        return Optional.ofNullable(categories.get(id));
+    }
+    
+    public boolean contains(Long id) {
+        return categories.containsKey(id);
+    }
+    
+    public List<CategorySummary> roots() {
+        return roots;
+    }
+    
+    public List<CategorySummary> children(Long parentId) {
+        return children.getOrDefault(parentId, List.of());
+    }
+    
+    public Set<Long> descendantIds(Long id) {
+        return descendantIds.getOrDefault(id, Set.of());
+    }
+}
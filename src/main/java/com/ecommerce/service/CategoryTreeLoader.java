@@ -0,0 +1,28 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ReadFromPrimary;
+import com.ecommerce.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Builds {@link CategoryTree} snapshots for {@link CategoryService}. A bean of its own so that the load goes
+ * through the {@link ReadFromPrimary} proxy: the tree outlives the replica lag, and one built from a lagging
+ * replica right after a category write would be published as current until the next refresh.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeLoader {
+    
+    private final CategoryRepository categoryRepository;
+    
+    // A transaction of its own, so a caller's read-only transaction that already holds a replica connection
+    // is not reused for the load
+    @ReadFromPrimary
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public CategoryTree load() {
+        return CategoryTree.of(categoryRepository.findActiveCategorySummaries());
+    }
+}
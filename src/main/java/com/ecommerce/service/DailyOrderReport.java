@@ -0,0 +1,121 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.repository.DailyOrderStatsRepository;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Daily order report (order count and revenue per creation day) backed by the {@code daily_order_stats}
+ * rollups. Days before today are closed once by {@link #closeDays()} and then stay frozen, except for
+ * deleted orders; only today and days not closed yet are aggregated from the orders table per request, so
+ * the report costs the same regardless of how much order history there is.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DailyOrderReport {
+    
+    private final DailyOrderStatsRepository statsRepository;
+    private final OrderRepository orderRepository;
+    
+    @Value("${orders.report.backfill:false}")
+    private boolean backfillOnStartup;
+    
+    // Rows of [order_date, total_orders, total_revenue], newest first, for orders created at or after startDate
+    public List<Object[]> getReport(LocalDateTime startDate) {
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate() : startDate.toLocalDate().plusDays(1);
+        LocalDate liveFrom = statsRepository.findLastClosedDate()
+                .map(day -> day.plusDays(1))
+                .filter(day -> day.isAfter(firstFullDay))
+                .orElse(firstFullDay);
+        
+        List<Object[]> report = new ArrayList<>();
+        live(liveFrom.atStartOfDay(), LocalDate.now().plusDays(1).atStartOfDay(), report);
+        statsRepository.findBetween(firstFullDay, liveFrom).forEach(day ->
+                report.add(new Object[]{day.getStatDate(), day.getOrderCount(), day.getTotalRevenue()}));
+        // A start time within a day only counts part of that day, which the rollup cannot answer
+        if (startDate.isBefore(firstFullDay.atStartOfDay())) {
+            live(startDate, firstFullDay.atStartOfDay(), report);
+        }
+        return report;
+    }
+    
+    /**
+     * Rolls up every day since the last closed one up to yesterday. Runs shortly after midnight and on startup,
+     * so days missed while the application was down are closed as well.
+     */
+    @Transactional
+    @Scheduled(cron = "${orders.report.close-cron:0 5 0 * * *}")
+    public void closeDays() {
+        LocalDate today = LocalDate.now();
+        Optional<LocalDate> from = statsRepository.findLastClosedDate()
+                .map(day -> day.plusDays(1))
+                .or(() -> orderRepository.findFirstCreatedAt().map(LocalDateTime::toLocalDate));
+        if (from.isPresent() && from.get().isBefore(today)) {
+            statsRepository.deleteBetween(from.get(), today);
+            int days = statsRepository.insertAggregates(from.get().atStartOfDay(), today.atStartOfDay());
+            log.info("Closed daily order stats from {} to {}: {} days with orders", from.get(), today.minusDays(1), days);
+        }
+    }
+    
+    /**
+     * Recomputes the rollups of all closed days from the orders table, e.g. after orders were changed outside
+     * the services. Also runs on startup with {@code --orders.report.backfill=true}.
+     */
+    @Transactional
+    public int backfill() {
+        LocalDate today = LocalDate.now();
+        statsRepository.deleteAllInBatch();
+        int days = orderRepository.findFirstCreatedAt()
+                .map(first -> statsRepository.insertAggregates(first, today.atStartOfDay()))
+                .orElse(0);
+        log.info("Backfilled daily order stats for {} days", days);
+        return days;
+    }
+    
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        } else {
+            closeDays();
+        }
+    }
+    
+    // Keeps a closed day in step when one of its orders is removed; days still open need no adjustment
+    @Transactional
+    public void orderDeleted(Order order) {
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        if (day.isBefore(LocalDate.now())) {
+            statsRepository.subtractOrder(day, order.getTotalAmount());
+        }
+    }
+    
+    private void live(LocalDateTime from, LocalDateTime to, List<Object[]> report) {
+        for (Object[] row : orderRepository.getDailyOrderReport(from, to)) {
+            // Native DATE columns come back as java.sql.Date; report LocalDate like the rollup rows
+            if (row[0] instanceof java.sql.Date date) {
+                row[0] = date.toLocalDate();
+            }
+            report.add(row);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.service;
+
+/**
+ * An order or stock decrease rejected because a product has fewer units in stock than requested. Still an
+ * {@link IllegalArgumentException}, so callers that map those to 400 responses need no change.
+ */
+public class InsufficientStockException extends IllegalArgumentException {
+    
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,258 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional in-memory stock reservation layer for hot products.
+ * <p>
+ * Checkouts reserve against lock-free per-product counters seeded from {@code Product.stock} instead of
+ * updating the product row. Committed reservations accumulate as net deltas that are written to the
+ * products table in periodic batches. Orders placed through the ledger are stored with
+ * {@code inventory_flushed = false} until their delta has been written, so stock that was never flushed
+ * (e.g. after a crash) is reconciled from {@code order_items} once all beans exist, before the web server
+ * starts taking requests; reservations are rejected until then. Stock returned by cancellations
+ * is written to the products table in the cancelling transaction and applied here through
+ * {@link #adjust}, so it survives a restart whether or not the reservation it undoes was flushed.
+ * <p>
+ * The counters are local to one JVM, so the ledger must only be enabled on a single application instance.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryLedger implements SmartInitializingSingleton {
+
+    private static final int FLUSH_CHUNK_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCache productCache;
+
+    // Available stock as seen by checkouts: flushed stock + unflushed deltas - uncommitted reservations
+    private final Map<Long, AtomicLong> available = new ConcurrentHashMap<>();
+
+    // Committed stock changes not yet written to the products table
+    private final Map<Long, AtomicLong> pendingDeltas = new ConcurrentHashMap<>();
+
+    // Committed orders whose stock decrement is part of the pending deltas
+    private final Queue<Long> pendingOrders = new ConcurrentLinkedQueue<>();
+
+    // Deltas drained by the running flush and not yet in the products table; guarded by itself
+    private final Map<Long, Integer> flushingDeltas = new HashMap<>();
+
+    // Set once unflushed orders have been applied to the products table, the stock counters are seeded from
+    private volatile boolean recovered;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves stock for a new order within the current transaction. The reservation is returned to the
+     * counters if the transaction rolls back and becomes a pending delta once it commits.
+     */
+    public void reserve(Long orderId, Map<Long, Integer> quantities) {
+        if (!recovered) {
+            throw new IllegalStateException("Inventory ledger has not reconciled unflushed orders yet");
+        }
+        Map<Long, Integer> reserved = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (!tryReserve(counter(entry.getKey()), entry.getValue())) {
+                reserved.forEach((productId, quantity) -> counter(productId).addAndGet(quantity));
+                throw new InsufficientStockException("Insufficient stock for product: " + entry.getKey());
+            }
+            reserved.put(entry.getKey(), entry.getValue());
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    // Record the delta before the order id so a flush never marks an order without its delta
+                    reserved.forEach((productId, quantity) -> pendingDelta(productId).addAndGet(-quantity));
+                    pendingOrders.add(orderId);
+                } else {
+                    reserved.forEach((productId, quantity) -> counter(productId).addAndGet(quantity));
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies a stock change that was written straight to the products table, e.g. an admin stock update or
+     * a cancellation, to an already seeded counter once the current transaction commits.
+     */
+    public void adjust(Long productId, long delta) {
+        if (!enabled || delta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            AtomicLong counter = available.get(productId);
+            if (counter != null) {
+                counter.addAndGet(delta);
+            }
+        });
+    }
+
+    public long getAvailableStock(Long productId) {
+        return counter(productId).get();
+    }
+
+    /**
+     * Committed stock changes that the products table does not include yet. An absolute stock level is written to
+     * the table as the level minus this, since the next flush applies it. Callers hold the product's row lock or
+     * its version, so a flush that writes the product either committed before or applies its delta after them.
+     */
+    public long getUnflushedDelta(Long productId) {
+        synchronized (flushingDeltas) {
+            AtomicLong pending = pendingDeltas.get(productId);
+            return (pending == null ? 0 : pending.get()) + flushingDeltas.getOrDefault(productId, 0);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:500}")
+    public void flush() {
+        if (pendingOrders.isEmpty() && pendingDeltas.values().stream().allMatch(delta -> delta.get() == 0)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> flushPending());
+    }
+
+    private void flushPending() {
+        // Drain orders before deltas: an order whose delta misses this flush is marked by the next one
+        List<Long> orderIds = new ArrayList<>();
+        for (Long orderId; (orderId = pendingOrders.poll()) != null; ) {
+            orderIds.add(orderId);
+        }
+        Map<Long, Integer> deltas = new HashMap<>();
+        synchronized (flushingDeltas) {
+            pendingDeltas.forEach((productId, delta) -> {
+                long value = delta.getAndSet(0);
+                if (value != 0) {
+                    deltas.put(productId, Math.toIntExact(value));
+                }
+            });
+            flushingDeltas.putAll(deltas);
+        }
+        if (orderIds.isEmpty() && deltas.isEmpty()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // The updated rows stay locked until the commit, so nobody reads their stock in between
+                synchronized (flushingDeltas) {
+                    flushingDeltas.clear();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    synchronized (flushingDeltas) {
+                        deltas.forEach((productId, delta) -> pendingDelta(productId).addAndGet(delta));
+                        flushingDeltas.clear();
+                    }
+                    pendingOrders.addAll(orderIds);
+                }
+            }
+        });
+
+        productRepository.increaseStockInBatch(deltas);
+        productCache.evict(deltas.keySet());
+        for (int from = 0; from < orderIds.size(); from += FLUSH_CHUNK_SIZE) {
+            orderRepository.markInventoryFlushed(orderIds.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, orderIds.size())));
+        }
+        log.debug("Flushed inventory deltas for {} products and {} orders", deltas.size(), orderIds.size());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> recover());
+        // Counters seeded before now hold stock without the reconciled decrements
+        available.clear();
+        recovered = true;
+    }
+
+    /**
+     * Applies the stock decrements of orders whose ledger delta was never flushed, e.g. because the
+     * application stopped before the next flush. Cancelled orders count too, as their stock was returned to
+     * the products table when they were cancelled. Runs regardless of whether the ledger is enabled.
+     */
+    private void recover() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Object[] row : orderItemRepository.findUnflushedQuantitiesByProduct()) {
+            deltas.put((Long) row[0], -((Number) row[1]).intValue());
+        }
+        productRepository.increaseStockInBatch(deltas);
+        int orders = orderRepository.markAllInventoryFlushed();
+        if (orders > 0) {
+            log.info("Reconciled unflushed inventory for {} orders across {} products", orders, deltas.size());
+        }
+    }
+
+    private boolean tryReserve(AtomicLong counter, int quantity) {
+        long current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    // Loads the stock outside the map, so no bin stays locked during the query; the first seed wins a race
+    private AtomicLong counter(Long productId) {
+        AtomicLong counter = available.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        int stock = productRepository.findById(productId).map(Product::getStock).orElse(0);
+        AtomicLong seeded = available.putIfAbsent(productId, new AtomicLong(stock));
+        return seeded != null ? seeded : available.get(productId);
+    }
+
+    private AtomicLong pendingDelta(Long productId) {
+        return pendingDeltas.computeIfAbsent(productId, id -> new AtomicLong());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset cursor: the sort key values of the last row of a page, URL-safe base64 encoded.
+ */
+public final class KeysetCursor {
+    
+    private static final String SEPARATOR = "\n";
+    
+    private KeysetCursor() {
+    }
+    
+    public static String encode(Object... values) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static List<String> decode(String cursor, int expectedValues) {
+        List<String> values;
+        try {
+            values = List.of(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, -1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (values.size() != expectedValues) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return values;
+    }
+    
+    public static Long decodeId(String cursor) {
+        return parse(decode(cursor, 1).get(0), Long::valueOf);
+    }
+    
+    /**
+     * Converts one decoded cursor value, reporting malformed values as an invalid cursor.
+     */
+    public static <T> T parse(String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor value: " + value, e);
+        }
+    }
+}
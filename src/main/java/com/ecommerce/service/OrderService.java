@@ -1,9 +1,14 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.RetryOnConflict;
+import com.ecommerce.model.dto.CursorSlice;
+import com.ecommerce.model.dto.OrderDetails;
+import com.ecommerce.model.dto.OrderSummary;
 import com.ecommerce.model.entity.*;
 import com.ecommerce.repository.OrderItemRepository;
 import com.ecommerce.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -11,9 +16,15 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,11 +36,32 @@ public class OrderService {
     private final UserService userService;
     private final ProductService productService;
     private final PaymentService paymentService;
+    private final InventoryLedger inventoryLedger;
+    private final OrderCancellation orderCancellation;
+    private final DailyOrderReport dailyOrderReport;
+    private final PaymentStats paymentStats;
+    private final BestSellers bestSellers;
     
     public Page<Order> findAll(Pageable pageable) {
         return orderRepository.findAll(pageable);
     }
     
+    /**
+     * A page of orders with their customer, payment and lines: one query for the page of ids, its count query,
+     * and one query loading those orders with the detail fetch plan, whatever the page size.
+     */
+    public Page<Order> findAllWithDetails(Pageable pageable) {
+        Page<Long> ids = orderRepository.findIds(pageable);
+        Map<Long, Order> orders = ids.isEmpty() ? Map.of() : orderRepository.findWithDetailsByIdIn(ids.getContent())
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.map(orders::get);
+    }
+    
+    public Page<OrderSummary> findAllSummaries(Pageable pageable) {
+        return orderRepository.findSummaries(pageable);
+    }
+    
     public Optional<Order> findById(Long id) {
         return orderRepository.findById(id);
     }
@@ -42,10 +74,57 @@ public class OrderService {
         return orderRepository.findOrdersByUserId(userId, pageable);
     }
     
+    public Page<OrderSummary> findSummariesByUserId(Long userId, Pageable pageable) {
+        return orderRepository.findSummariesByUserId(userId, pageable);
+    }
+    
+    /**
+     * Keyset alternative to {@link #findAll(Pageable)}, newest first; never runs a count query.
+     * {@code after} is the {@code nextCursor} of the previous slice, or null for the first one.
+     */
+    public CursorSlice<OrderSummary> scrollLatest(String after, int size) {
+        List<OrderSummary> rows;
+        if (after == null) {
+            rows = orderRepository.findLatest(Limit.of(size + 1));
+        } else {
+            List<String> key = KeysetCursor.decode(after, 2);
+            rows = orderRepository.findLatestBefore(KeysetCursor.parse(key.get(0), LocalDateTime::parse),
+                    KeysetCursor.parse(key.get(1), Long::valueOf), Limit.of(size + 1));
+        }
+        return CursorSlice.of(rows, size, OrderService::cursorOf);
+    }
+    
+    public CursorSlice<OrderSummary> scrollLatestByUserId(Long userId, String after, int size) {
+        List<OrderSummary> rows;
+        if (after == null) {
+            rows = orderRepository.findLatestByUserId(userId, Limit.of(size + 1));
+        } else {
+            List<String> key = KeysetCursor.decode(after, 2);
+            rows = orderRepository.findLatestByUserIdBefore(userId, KeysetCursor.parse(key.get(0), LocalDateTime::parse),
+                    KeysetCursor.parse(key.get(1), Long::valueOf), Limit.of(size + 1));
+        }
+        return CursorSlice.of(rows, size, OrderService::cursorOf);
+    }
+    
+    /**
+     * Passes the summaries of orders created in [from, to) to {@code sink}, oldest first, from a cursor read in
+     * batches of the fetch size. The rows are DTOs, so nothing accumulates in the persistence context; the
+     * connection is held until the last row has been consumed.
+     */
+    public void exportSummaries(LocalDateTime from, LocalDateTime to, Consumer<OrderSummary> sink) {
+        try (Stream<OrderSummary> orders = orderRepository.streamSummaries(from, to)) {
+            orders.forEach(sink);
+        }
+    }
+    
     public List<Order> findByStatus(OrderStatus status) {
         return orderRepository.findByStatus(status);
     }
     
+    public List<OrderSummary> findSummariesByStatus(OrderStatus status) {
+        return orderRepository.findSummariesByStatus(status);
+    }
+    
     public List<Order> findOrdersBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
         return orderRepository.findOrdersBetweenDates(startDate, endDate);
     }
@@ -58,8 +137,17 @@ public class OrderService {
         return orderRepository.findByIdWithUserAndItems(id);
     }
     
+    // Two queries: the order header joined with its user, then the lines joined with their products
+    public Optional<OrderDetails> findDetailsById(Long id) {
+        return orderRepository.findDetailsById(id).map(this::withLines);
+    }
+    
+    public Optional<OrderDetails> findDetailsByOrderNumber(String orderNumber) {
+        return orderRepository.findDetailsByOrderNumber(orderNumber).map(this::withLines);
+    }
+    
     public List<Object[]> getDailyOrderReport(LocalDateTime startDate) {
-        return orderRepository.getDailyOrderReport(startDate);
+        return dailyOrderReport.getReport(startDate);
     }
     
     public Long countOrdersByUserId(Long userId) {
@@ -77,65 +165,129 @@ public class OrderService {
         order.setOrderNumber(orderNumber);
         order.setStatus(OrderStatus.PENDING);
         
-        // Process order items
-        order.getOrderItems().forEach(orderItem -> {
-            // Verify product stock
-            if (!productService.isProductInStock(orderItem.getProduct().getId(), orderItem.getQuantity())) {
-                throw new IllegalArgumentException("Insufficient stock for product: " + orderItem.getProduct().getName());
+        // Load every referenced product with a single IN query
+        Map<Long, Integer> quantities = requestedQuantities(order);
+        Map<Long, Product> products = productService.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        boolean useLedger = inventoryLedger.isEnabled();
+        
+        // Verify product stock in memory against the combined quantity per product; with the ledger enabled
+        // the products table lags behind, so the ledger reservation is the only stock check
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+            if (!product.getIsActive()) {
+                throw new IllegalArgumentException("Product is not available: " + product.getName());
+            }
+            if (!useLedger && !product.isInStock(quantity)) {
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
             }
-            
-            // Set current price and calculate subtotal
-            Product product = productService.findById(orderItem.getProduct().getId())
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        });
+        
+        // Set current price and calculate subtotal
+        order.getOrderItems().forEach(orderItem -> {
+            Product product = products.get(orderItem.getProduct().getId());
+            orderItem.setOrder(order);
+            orderItem.setProduct(product);
             orderItem.setPrice(product.getPrice());
             orderItem.calculateSubtotal();
-            
-            // Decrease product stock
-            productService.decreaseStock(product.getId(), orderItem.getQuantity());
         });
         
+        // Decrease stock with conditional updates in one JDBC batch; rejects the order if a concurrent
+        // checkout took the remaining stock after the in-memory check
+        if (!useLedger) {
+            productService.decreaseStock(quantities);
+        }
+        order.setInventoryFlushed(!useLedger);
+        
         // Calculate total amount
         order.calculateTotal();
         
-        // Save order
+        // Save order; order items are inserted in a JDBC batch through the cascade
         Order savedOrder = orderRepository.save(order);
         
+        // Reserve against the in-memory ledger; the products table is updated by its next flush
+        if (useLedger) {
+            inventoryLedger.reserve(savedOrder.getId(), quantities);
+        }
+        
         return savedOrder;
     }
     
+    /**
+     * Moves an order along the {@link OrderStatus} transition table; setting the current status again changes
+     * nothing. Moving to CANCELLED is a cancellation and restores the stock, as {@link #cancelOrder} does.
+     */
+    @RetryOnConflict
     @Transactional
     public Order updateOrderStatus(Long orderId, OrderStatus status) {
         return orderRepository.findById(orderId)
                 .map(order -> {
+                    if (order.getStatus() == status) {
+                        return order;
+                    }
+                    if (!order.getStatus().canTransitionTo(status)) {
+                        throw new IllegalStateException(
+                                "Order cannot move from " + order.getStatus() + " to " + status);
+                    }
+                    if (status == OrderStatus.CANCELLED) {
+                        return orderCancellation.cancel(order);
+                    }
+                    bestSellers.statusChanged(order.getId(), order.getStatus(), status);
                     order.setStatus(status);
                     return orderRepository.save(order);
                 })
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
     }
     
+    // A concurrent payment or status change makes the cancellation retry and decide again from the new status
+    @RetryOnConflict
     @Transactional
     public Order cancelOrder(Long orderId) {
         return orderRepository.findById(orderId)
-                .map(order -> {
-                    if (!order.canBeCancelled()) {
-                        throw new IllegalStateException("Order cannot be cancelled in current status: " + order.getStatus());
-                    }
-                    
-                    order.setStatus(OrderStatus.CANCELLED);
-                    
-                    // Restore product stock
-                    order.getOrderItems().forEach(orderItem -> {
-                        productService.increaseStock(orderItem.getProduct().getId(), orderItem.getQuantity());
-                    });
-                    
-                    return orderRepository.save(order);
-                })
+                .map(orderCancellation::cancel)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
     }
     
     @Transactional
     public void deleteById(Long id) {
-        orderRepository.deleteById(id);
+        orderRepository.findById(id).ifPresent(order -> {
+            dailyOrderReport.orderDeleted(order);
+            // The payment goes with the order, and with it its share of the payment rollups
+            if (order.getPayment() != null) {
+                paymentStats.record(PaymentStats.Contribution.of(order.getPayment()), null);
+            }
+            orderRepository.delete(order);
+        });
+    }
+    
+    @Transactional
+    public int backfillDailyOrderReport() {
+        return dailyOrderReport.backfill();
+    }
+    
+    private Map<Long, Integer> requestedQuantities(Order order) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        order.getOrderItems().forEach(orderItem -> {
+            if (orderItem.getProduct() == null || orderItem.getProduct().getId() == null) {
+                throw new IllegalArgumentException("Order item must reference a product");
+            }
+            if (orderItem.getQuantity() == null || orderItem.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for product: " + orderItem.getProduct().getId());
+            }
+            quantities.merge(orderItem.getProduct().getId(), orderItem.getQuantity(), Integer::sum);
+        });
+        return quantities;
+    }
+    
+    private OrderDetails withLines(OrderDetails order) {
+        return order.withItems(orderItemRepository.findLinesByOrderId(order.id()));
+    }
+    
+    private static String cursorOf(OrderSummary order) {
+        return KeysetCursor.encode(order.createdAt(), order.id());
     }
     
     private String generateOrderNumber() {
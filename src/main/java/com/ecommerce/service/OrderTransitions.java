@@ -0,0 +1,120 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ConflictRetry;
+import com.ecommerce.model.dto.OrderTransitionResult;
+import com.ecommerce.model.dto.OrderTransitionResult.Outcome;
+import com.ecommerce.model.dto.OrderTransitionResult.Result;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bulk status transitions, such as a fulfilment system marking thousands of orders SHIPPED. Orders are handled in
+ * chunks of {@code orders.transitions.chunk-size} ids with a transaction each: a chunk locks its orders in id
+ * order, checks every one against the {@link OrderStatus} transition table in memory and moves the valid ones
+ * with a single {@code UPDATE ... WHERE id IN (...) AND status IN (predecessors)}. Cancellations restore stock
+ * with one update per product over all the cancelled orders of the chunk.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderTransitions {
+    
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderCancellation orderCancellation;
+    private final BestSellers bestSellers;
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetry conflictRetry;
+    
+    @Value("${orders.transitions.chunk-size:1000}")
+    private int chunkSize;
+    
+    /**
+     * Moves the given orders to {@code status}. Orders already in it, unknown ids and orders whose status does not
+     * allow the move are reported and left as they are. Chunks that committed stay applied if a later one fails.
+     */
+    public OrderTransitionResult apply(List<Long> orderIds, OrderStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        if (orderIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Order ids must not be null");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<Long> sorted = ids.stream().sorted().toList();
+        
+        Map<Long, Outcome> outcomes = new HashMap<>();
+        for (int from = 0; from < sorted.size(); from += chunkSize) {
+            List<Long> chunk = sorted.subList(from, Math.min(from + chunkSize, sorted.size()));
+            // A cancellation running at the same time locks products before its order, the reverse of a chunk
+            outcomes.putAll(conflictRetry.execute("OrderTransitions.apply",
+                    () -> transactionTemplate.execute(tx -> transition(chunk, status))));
+        }
+        
+        List<Outcome> inRequestOrder = ids.stream().map(outcomes::get).toList();
+        int applied = (int) inRequestOrder.stream().filter(outcome -> outcome.result() == Result.APPLIED).count();
+        return new OrderTransitionResult(status, ids.size(), applied, inRequestOrder);
+    }
+    
+    /**
+     * One chunk of {@link #apply}, within the caller's transaction: locks the orders, moves those the transition
+     * table allows with one update and returns the outcome per order id. Also used by the payment outbox.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Outcome> transition(Collection<Long> orderIds, OrderStatus status) {
+        Map<Long, OrderStatus> current = new HashMap<>();
+        orderRepository.findStatusForUpdate(orderIds).forEach(row -> current.put((Long) row[0], (OrderStatus) row[1]));
+        
+        Map<Long, Outcome> outcomes = new LinkedHashMap<>();
+        Map<OrderStatus, List<Long>> moving = new EnumMap<>(OrderStatus.class);
+        for (Long orderId : orderIds) {
+            OrderStatus previous = current.get(orderId);
+            Result result;
+            if (previous == null) {
+                result = Result.NOT_FOUND;
+            } else if (previous == status) {
+                result = Result.UNCHANGED;
+            } else if (!previous.canTransitionTo(status)) {
+                result = Result.NOT_ALLOWED;
+            } else {
+                result = Result.APPLIED;
+                moving.computeIfAbsent(previous, s -> new ArrayList<>()).add(orderId);
+            }
+            outcomes.put(orderId, new Outcome(orderId, previous, result));
+        }
+        if (moving.isEmpty()) {
+            return outcomes;
+        }
+        
+        // Before the update, which moves updatedAt away from the delivery time a return is subtracted at
+        moving.forEach((previous, ids) -> bestSellers.statusChanged(ids, previous, status));
+        
+        // The rows are locked, so the status guard matches every order validated above
+        List<Long> movingIds = moving.values().stream().flatMap(List::stream).toList();
+        orderRepository.transitionStatus(movingIds, status.predecessors(), status);
+        
+        if (status == OrderStatus.CANCELLED) {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            orderItemRepository.sumQuantitiesByProduct(movingIds).forEach(row ->
+                    quantities.put((Long) row[0], ((Number) row[1]).intValue()));
+            orderCancellation.restoreStock(quantities);
+        }
+        return outcomes;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Charges payments with an external payment provider. Implementations must treat {@code transactionId} as an
+ * idempotency key: repeating a charge, e.g. after a timeout, returns the outcome of the first one instead of
+ * charging again. Transient failures are thrown as {@link PaymentGatewayException} and retried by the caller.
+ */
+public interface PaymentGateway {
+    
+    Result charge(String transactionId, BigDecimal amount, String paymentMethod);
+    
+    record Result(boolean approved, String declineReason) {
+        
+        public static Result approve() {
+            return new Result(true, null);
+        }
+        
+        public static Result decline(String reason) {
+            return new Result(false, reason);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.service;
+
+/**
+ * A gateway call that failed without an outcome (timeout, unavailable provider) and may be retried.
+ */
+public class PaymentGatewayException extends RuntimeException {
+    
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+    
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
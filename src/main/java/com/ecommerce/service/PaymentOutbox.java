@@ -0,0 +1,163 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.RetryOnConflict;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.model.entity.OutboxStatus;
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.PaymentOutboxEvent;
+import com.ecommerce.model.entity.PaymentStatus;
+import com.ecommerce.repository.PaymentOutboxRepository;
+import com.ecommerce.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional side of asynchronous payments. An event is written together with its payment, claimed in a
+ * batch by {@link PaymentOutboxWorker} and completed with the gateway outcomes in one transaction per batch.
+ * <p>
+ * Claiming moves {@code next_attempt_at} past a lease instead of holding row locks during the gateway calls,
+ * so the events of a worker that dies mid-batch become due again once the lease expires.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class PaymentOutbox {
+    
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private final PaymentOutboxRepository outboxRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentStats paymentStats;
+    private final OrderTransitions orderTransitions;
+    
+    @Value("${payments.outbox.lease:2m}")
+    private Duration lease;
+    
+    @Value("${payments.outbox.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${payments.outbox.backoff:1s}")
+    private Duration backoff;
+    
+    @Value("${payments.outbox.max-backoff:5m}")
+    private Duration maxBackoff;
+    
+    public record Charge(Long eventId, Long paymentId, String transactionId, BigDecimal amount, String paymentMethod) {
+    }
+    
+    // result is null when the call failed without an outcome and should be retried
+    public record Outcome(Charge charge, PaymentGateway.Result result, String error) {
+    }
+    
+    public void enqueue(Payment payment) {
+        outboxRepository.save(PaymentOutboxEvent.builder()
+                .payment(payment)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
+    
+    public List<Charge> claimDue(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentOutboxEvent> events = outboxRepository.findDueForUpdate(now, Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Payment> payments = paymentsOf(events);
+        List<Charge> charges = new ArrayList<>(events.size());
+        for (PaymentOutboxEvent event : events) {
+            event.setNextAttemptAt(now.plus(lease));
+            Payment payment = payments.get(event.getPayment().getId());
+            charges.add(new Charge(event.getId(), payment.getId(), payment.getTransactionId(), payment.getAmount(),
+                    payment.getPaymentMethod()));
+        }
+        return charges;
+    }
+    
+    /**
+     * Applies a batch of gateway outcomes: settled payments move to COMPLETED or FAILED with their orders, failed
+     * calls are rescheduled with exponential backoff until {@code max-attempts}, after which the payment fails.
+     * A payment or order changed by hand during the gateway calls conflicts, and the batch is applied again.
+     */
+    @RetryOnConflict
+    public void complete(List<Outcome> outcomes) {
+        Map<Long, PaymentOutboxEvent> events = outboxRepository.findAllById(
+                        outcomes.stream().map(outcome -> outcome.charge().eventId()).toList()).stream()
+                .collect(Collectors.toMap(PaymentOutboxEvent::getId, Function.identity()));
+        Map<Long, Payment> payments = paymentsOf(events.values());
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> paidOrderIds = new ArrayList<>();
+        List<Long> failedOrderIds = new ArrayList<>();
+        List<PaymentStats.Contribution> completed = new ArrayList<>();
+        
+        for (Outcome outcome : outcomes) {
+            PaymentOutboxEvent event = events.get(outcome.charge().eventId());
+            Payment payment = payments.get(outcome.charge().paymentId());
+            boolean settled = true;
+            boolean approved = false;
+            if (outcome.result() != null) {
+                event.setStatus(OutboxStatus.DONE);
+                event.setLastError(outcome.result().declineReason());
+                approved = outcome.result().approved();
+            } else {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setLastError(truncate(outcome.error()));
+                if (attempts >= maxAttempts) {
+                    event.setStatus(OutboxStatus.FAILED);
+                } else {
+                    event.setNextAttemptAt(now.plus(backoff(attempts)));
+                    settled = false;
+                }
+            }
+            // A payment processed or failed by hand in the meantime keeps its status
+            if (settled && payment.getStatus() == PaymentStatus.PENDING) {
+                payment.setStatus(approved ? PaymentStatus.COMPLETED : PaymentStatus.FAILED);
+                if (approved) {
+                    payment.setPaymentDate(now);
+                    completed.add(PaymentStats.Contribution.of(payment));
+                }
+                (approved ? paidOrderIds : failedOrderIds).add(payment.getOrder().getId());
+            }
+        }
+        
+        // Payments and events are written as batched updates at commit; orders take one update per status and
+        // only move if their status allows it, so an order cancelled by hand in the meantime stays cancelled.
+        // Declined orders are cancelled like any other, with their stock restored
+        if (!paidOrderIds.isEmpty()) {
+            orderTransitions.transition(paidOrderIds, OrderStatus.PROCESSING);
+        }
+        if (!failedOrderIds.isEmpty()) {
+            orderTransitions.transition(failedOrderIds, OrderStatus.CANCELLED);
+        }
+        paymentStats.recordAll(List.of(), completed);
+    }
+    
+    private Map<Long, Payment> paymentsOf(Iterable<PaymentOutboxEvent> events) {
+        List<Long> paymentIds = new ArrayList<>();
+        events.forEach(event -> paymentIds.add(event.getPayment().getId()));
+        return paymentRepository.findAllById(paymentIds).stream()
+                .collect(Collectors.toMap(Payment::getId, Function.identity()));
+    }
+    
+    // 1s, 2s, 4s, ... capped at max-backoff
+    private Duration backoff(int attempts) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+    
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
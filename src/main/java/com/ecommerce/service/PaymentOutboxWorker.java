@@ -0,0 +1,76 @@
+package com.ecommerce.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the payment outbox: claims due events in batches, charges them through the {@link PaymentGateway} on a
+ * fixed pool of worker threads outside any transaction, and records the whole batch in one transaction.
+ */
+@Slf4j
+@Component
+public class PaymentOutboxWorker {
+    
+    private final PaymentOutbox outbox;
+    private final PaymentGateway gateway;
+    private final ExecutorService workers;
+    
+    @Value("${payments.outbox.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${payments.outbox.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${payments.gateway.timeout:10s}")
+    private Duration gatewayTimeout;
+    
+    public PaymentOutboxWorker(PaymentOutbox outbox, PaymentGateway gateway,
+                               @Value("${payments.outbox.workers:4}") int workers) {
+        this.outbox = outbox;
+        this.gateway = gateway;
+        this.workers = Executors.newFixedThreadPool(workers);
+    }
+    
+    @Scheduled(fixedDelayString = "${payments.outbox.poll-interval-ms:200}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        List<PaymentOutbox.Charge> batch;
+        do {
+            batch = outbox.claimDue(batchSize);
+            if (!batch.isEmpty()) {
+                outbox.complete(charge(batch));
+                log.debug("Processed {} outbox payments", batch.size());
+            }
+        } while (batch.size() == batchSize);
+    }
+    
+    private List<PaymentOutbox.Outcome> charge(List<PaymentOutbox.Charge> batch) {
+        List<CompletableFuture<PaymentOutbox.Outcome>> calls = batch.stream()
+                .map(charge -> CompletableFuture
+                        .supplyAsync(() -> new PaymentOutbox.Outcome(charge,
+                                gateway.charge(charge.transactionId(), charge.amount(), charge.paymentMethod()), null), workers)
+                        .orTimeout(gatewayTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        // Timeouts and gateway errors are retried; the transaction id keeps a retry from charging twice
+                        .exceptionally(failure -> new PaymentOutbox.Outcome(charge, null, String.valueOf(
+                                failure.getCause() != null ? failure.getCause() : failure))))
+                .toList();
+        return calls.stream().map(CompletableFuture::join).toList();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -1,6 +1,9 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.RetryOnConflict;
+import com.ecommerce.model.dto.PaymentSummary;
 import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderStatus;
 import com.ecommerce.model.entity.Payment;
 import com.ecommerce.model.entity.PaymentStatus;
 import com.ecommerce.repository.OrderRepository;
@@ -12,6 +15,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +26,9 @@ public class PaymentService {
     
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final PaymentOutbox paymentOutbox;
+    private final PaymentStats paymentStats;
+    private final OrderCancellation orderCancellation;
     
     public List<Payment> findAll() {
         return paymentRepository.findAll();
@@ -41,45 +50,109 @@ public class PaymentService {
         return paymentRepository.findCompletedPaymentsBetweenDates(startDate, endDate);
     }
     
+    public List<PaymentSummary> findAllSummaries() {
+        return paymentRepository.findAllSummaries();
+    }
+    
+    // All payments in id order; see OrderService#exportSummaries
+    public void exportSummaries(Consumer<PaymentSummary> sink) {
+        try (Stream<PaymentSummary> payments = paymentRepository.streamSummaries()) {
+            payments.forEach(sink);
+        }
+    }
+    
+    public Optional<PaymentSummary> findSummaryById(Long id) {
+        return paymentRepository.findSummaryById(id);
+    }
+    
+    public Optional<PaymentSummary> findSummaryByOrderId(Long orderId) {
+        return paymentRepository.findSummaryByOrderId(orderId);
+    }
+    
+    public List<PaymentSummary> findSummariesByStatus(PaymentStatus status) {
+        return paymentRepository.findSummariesByStatus(status);
+    }
+    
+    public List<PaymentSummary> findCompletedSummariesBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
+        return paymentRepository.findCompletedSummariesBetweenDates(startDate, endDate);
+    }
+    
     public Long countCompletedPayments() {
-        return paymentRepository.countCompletedPayments();
+        return paymentStats.countCompletedPayments();
     }
     
     public Double getTotalRevenue() {
-        return paymentRepository.getTotalRevenue();
+        return paymentStats.getTotalRevenue();
     }
     
     public List<Object[]> getPaymentMethodStatistics() {
-        return paymentRepository.getPaymentMethodStatistics();
+        return paymentStats.getPaymentMethodStatistics();
     }
     
     @Transactional
     public Payment createPayment(Payment payment) {
         Order order = orderRepository.findById(payment.getOrder().getId())
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        if (!order.getStatus().canTransitionTo(OrderStatus.CONFIRMED)) {
+            throw new IllegalStateException("Order cannot be paid in current status: " + order.getStatus());
+        }
         
+        payment.setOrder(order);
         payment.setAmount(order.getTotalAmount());
         payment.setStatus(PaymentStatus.PENDING);
         
         Payment savedPayment = paymentRepository.save(payment);
         order.setPayment(savedPayment);
-        order.setStatus(com.ecommerce.model.entity.OrderStatus.CONFIRMED);
+        order.setStatus(OrderStatus.CONFIRMED);
         orderRepository.save(order);
         
         return savedPayment;
     }
     
+    /**
+     * Accepts a payment for asynchronous processing: the payment and its outbox event are written in one
+     * transaction and the gateway is called later by {@link PaymentOutboxWorker}. Submitting a transaction id
+     * that already exists returns that payment instead of creating a second one.
+     */
+    @Transactional
+    public PaymentSummary submitPayment(Payment payment) {
+        if (payment.getTransactionId() == null) {
+            payment.setTransactionId(UUID.randomUUID().toString());
+        } else if (paymentRepository.existsByTransactionId(payment.getTransactionId())) {
+            return paymentRepository.findSummaryByTransactionId(payment.getTransactionId()).orElseThrow();
+        }
+        Payment savedPayment = createPayment(payment);
+        paymentOutbox.enqueue(savedPayment);
+        return PaymentSummary.from(savedPayment);
+    }
+    
+    public Optional<PaymentSummary> findSummaryByTransactionId(String transactionId) {
+        return paymentRepository.findSummaryByTransactionId(transactionId);
+    }
+    
+    @RetryOnConflict
     @Transactional
     public Payment processPayment(Long paymentId) {
         return paymentRepository.findById(paymentId)
                 .map(payment -> {
+                    if (payment.getStatus() == PaymentStatus.COMPLETED) {
+                        return payment;
+                    }
+                    Order order = orderRepository.findById(payment.getOrder().getId()).orElse(null);
+                    // A cancellation that won the race has restored the stock; the order must not be shipped now
+                    if (order != null && !order.getStatus().canTransitionTo(OrderStatus.PROCESSING)) {
+                        throw new IllegalStateException("Order cannot be processed in current status: "
+                                + order.getStatus());
+                    }
+                    
+                    PaymentStats.Contribution before = PaymentStats.Contribution.of(payment);
                     payment.setStatus(PaymentStatus.COMPLETED);
                     payment.setPaymentDate(LocalDateTime.now());
                     Payment updatedPayment = paymentRepository.save(payment);
+                    paymentStats.record(before, PaymentStats.Contribution.of(payment));
                     
-                    Order order = orderRepository.findById(payment.getOrder().getId()).orElse(null);
                     if (order != null) {
-                        order.setStatus(com.ecommerce.model.entity.OrderStatus.PROCESSING);
+                        order.setStatus(OrderStatus.PROCESSING);
                         orderRepository.save(order);
                     }
                     
@@ -88,19 +161,22 @@ public class PaymentService {
                 .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
     }
     
+    @RetryOnConflict
     @Transactional
     public Payment failPayment(Long paymentId) {
         return paymentRepository.findById(paymentId)
                 .map(payment -> {
-                    payment.setStatus(PaymentStatus.FAILED);
-                    Payment updatedPayment = paymentRepository.save(payment);
-                    
+                    // Rejects orders already past cancellation, and puts the stock of the rest back
                     Order order = orderRepository.findById(payment.getOrder().getId()).orElse(null);
-                    if (order != null) {
-                        order.setStatus(com.ecommerce.model.entity.OrderStatus.CANCELLED);
-                        orderRepository.save(order);
+                    if (order != null && order.getStatus() != OrderStatus.CANCELLED) {
+                        orderCancellation.cancel(order);
                     }
                     
+                    PaymentStats.Contribution before = PaymentStats.Contribution.of(payment);
+                    payment.setStatus(PaymentStatus.FAILED);
+                    Payment updatedPayment = paymentRepository.save(payment);
+                    paymentStats.record(before, null);
+                    
                     return updatedPayment;
                 })
                 .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
@@ -108,6 +184,14 @@ public class PaymentService {
     
     @Transactional
     public void deleteById(Long id) {
-        paymentRepository.deleteById(id);
+        paymentRepository.findById(id).ifPresent(payment -> {
+            paymentStats.record(PaymentStats.Contribution.of(payment), null);
+            paymentRepository.delete(payment);
+        });
+    }
+    
+    @Transactional
+    public int rebuildStatistics() {
+        return paymentStats.rebuild();
     }
 }
\ No newline at end of file
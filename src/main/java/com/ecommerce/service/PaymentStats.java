@@ -0,0 +1,90 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.PaymentDailyStats;
+import com.ecommerce.model.entity.PaymentStatus;
+import com.ecommerce.repository.PaymentDailyStatsRepository;
+import com.ecommerce.repository.PaymentDailyStatsRepositoryCustom.Delta;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Revenue and payment-method statistics served from the {@code payment_daily_stats} rollups. A payment counts
+ * towards the row of its payment day and method while it is COMPLETED; every status change records the
+ * difference in the same transaction, and {@link #rebuild()} recomputes the rows from the payments table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PaymentStats {
+    
+    private final PaymentDailyStatsRepository statsRepository;
+    
+    // What a payment adds to the rollups: nothing unless it is completed
+    public record Contribution(PaymentDailyStats.Key key, BigDecimal amount) {
+        
+        public static Contribution of(Payment payment) {
+            if (payment.getStatus() != PaymentStatus.COMPLETED || payment.getPaymentDate() == null) {
+                return null;
+            }
+            return new Contribution(new PaymentDailyStats.Key(payment.getPaymentDate().toLocalDate(),
+                    payment.getPaymentMethod()), payment.getAmount());
+        }
+    }
+    
+    public Long countCompletedPayments() {
+        return statsRepository.countCompletedPayments();
+    }
+    
+    public Double getTotalRevenue() {
+        return statsRepository.getTotalRevenue();
+    }
+    
+    public List<Object[]> getPaymentMethodStatistics() {
+        return statsRepository.getPaymentMethodStatistics();
+    }
+    
+    @Transactional
+    public void record(Contribution before, Contribution after) {
+        recordAll(before != null ? List.of(before) : List.of(), after != null ? List.of(after) : List.of());
+    }
+    
+    // Nets all changes of a transaction into one upsert per day and method
+    @Transactional
+    public void recordAll(Collection<Contribution> removed, Collection<Contribution> added) {
+        Map<PaymentDailyStats.Key, Delta> deltas = new HashMap<>();
+        removed.stream().filter(Objects::nonNull).forEach(contribution ->
+                deltas.merge(contribution.key(), new Delta(-1, contribution.amount().negate()), PaymentStats::sum));
+        added.stream().filter(Objects::nonNull).forEach(contribution ->
+                deltas.merge(contribution.key(), new Delta(1, contribution.amount()), PaymentStats::sum));
+        deltas.values().removeIf(delta -> delta.count() == 0 && delta.amount().signum() == 0);
+        statsRepository.increment(deltas);
+    }
+    
+    /**
+     * Reconciliation: recomputes every rollup row from the completed payments, e.g. after payments were changed
+     * outside the services. Runs nightly; set {@code payments.stats.reconcile-cron=-} to disable.
+     */
+    @Transactional
+    @Scheduled(cron = "${payments.stats.reconcile-cron:0 30 3 * * *}")
+    public int rebuild() {
+        int rows = statsRepository.rebuild();
+        log.info("Rebuilt {} payment statistics rows", rows);
+        return rows;
+    }
+    
+    private static Delta sum(Delta left, Delta right) {
+        return new Delta(left.count() + right.count(), left.amount().add(right.amount()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Programmatic eviction for writes that touch several products at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCache {
+    
+    private final CacheManager cacheManager;
+    
+    public void evict(Collection<Long> productIds) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null) {
+            productIds.forEach(products::evict);
+        }
+    }
+    
+    // For writes that do not know which product ids they touched, such as bulk imports
+    public void evictAll() {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null) {
+            products.clear();
+        }
+        evictPages();
+    }
+    
+    public void evictPages() {
+        Cache productPages = cacheManager.getCache(CacheConfig.PRODUCT_PAGES);
+        if (productPages != null) {
+            productPages.clear();
+        }
+    }
+}
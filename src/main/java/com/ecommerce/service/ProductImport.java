@@ -0,0 +1,164 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.ProductImportResult;
+import com.ecommerce.model.dto.ProductImportRow;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bulk product import keyed by sku. Rows are validated as they arrive, with categories checked against the ids
+ * loaded once per import, and upserted in JDBC batches that commit one by one. A batch the database rejects is
+ * retried row by row, so a bad row fails on its own instead of taking its batch down with it.
+ * <p>
+ * While the inventory ledger is enabled it owns the stock counters, so an import sets the stock of new products
+ * only and leaves the stock of existing ones to the ledger.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImport {
+    
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ProductCache productCache;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${catalog.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+    
+    public Session begin() {
+        return new Session(categoryRepository.findAllIds(), !inventoryLedger.isEnabled());
+    }
+    
+    /**
+     * One import, fed row by row from a single thread and closed with {@link #finish()}. Holds at most one batch
+     * of rows and the first reported errors in memory.
+     */
+    public final class Session {
+        
+        private final Set<Long> categoryIds;
+        private final boolean updateStock;
+        
+        // Sorted by sku so that concurrent imports lock rows in the same order; a repeated sku keeps its last row
+        private final Map<String, Line> batch = new TreeMap<>();
+        private final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long superseded;
+        private long failed;
+        
+        private Session(Set<Long> categoryIds, boolean updateStock) {
+            this.categoryIds = categoryIds;
+            this.updateStock = updateStock;
+        }
+        
+        public void add(long line, ProductImportRow row) {
+            rows++;
+            String error = validate(row);
+            if (error != null) {
+                fail(line, row.sku(), error);
+                return;
+            }
+            if (batch.put(row.sku(), new Line(line, row)) != null) {
+                // Only the later row for the same sku is written; the earlier one never reaches the database
+                superseded++;
+            }
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        // A row that could not be parsed
+        public void reject(long line, String message) {
+            rows++;
+            fail(line, null, message);
+        }
+        
+        public ProductImportResult finish() {
+            flush();
+            return new ProductImportResult(rows, imported, superseded, failed, List.copyOf(errors));
+        }
+        
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Line> lines = new ArrayList<>(batch.values());
+            batch.clear();
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        productRepository.upsertBySku(lines.stream().map(Line::row).toList(), updateStock));
+                imported += lines.size();
+            } catch (DataAccessException e) {
+                lines.forEach(this::importAlone);
+            }
+            productCache.evictAll();
+        }
+        
+        private void importAlone(Line line) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        productRepository.upsertBySku(List.of(line.row()), updateStock));
+                imported++;
+            } catch (DataAccessException e) {
+                fail(line.number(), line.row().sku(), e.getMostSpecificCause().getMessage());
+            }
+        }
+        
+        private String validate(ProductImportRow row) {
+            if (row.sku() == null || row.sku().isBlank()) {
+                return "sku is required";
+            }
+            if (row.sku().length() > 64) {
+                return "sku is longer than 64 characters";
+            }
+            if (row.name() == null || row.name().isBlank()) {
+                return "name is required";
+            }
+            if (row.name().length() > 200) {
+                return "name is longer than 200 characters";
+            }
+            if (row.price() == null || row.price().signum() < 0 || row.price().compareTo(MAX_PRICE) > 0
+                    || row.price().stripTrailingZeros().scale() > 2) {
+                return "price must be between 0 and " + MAX_PRICE + " with at most 2 decimals";
+            }
+            if (row.stock() == null || row.stock() < 0) {
+                return "stock must be zero or more";
+            }
+            if (row.categoryId() == null || !categoryIds.contains(row.categoryId())) {
+                return "unknown category: " + row.categoryId();
+            }
+            if (row.imageUrl() != null && row.imageUrl().length() > 500) {
+                return "imageUrl is longer than 500 characters";
+            }
+            return null;
+        }
+        
+        private void fail(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportResult.RowError(line, sku, message));
+            }
+        }
+    }
+    
+    private record Line(long number, ProductImportRow row) {
+    }
+}
@@ -1,17 +1,35 @@
 package com.ecommerce.service;
 
-import com.ecommerce.model.entity.Category;
+import com.ecommerce.config.CacheConfig;
+import com.ecommerce.config.ReadFromPrimary;
+import com.ecommerce.config.RetryOnConflict;
+import com.ecommerce.model.dto.CursorSlice;
+import com.ecommerce.model.dto.ProductDetails;
+import com.ecommerce.model.dto.ProductSummary;
 import com.ecommerce.model.entity.Product;
 import com.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -20,39 +38,116 @@ public class ProductService {
     
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
+    private final InventoryLedger inventoryLedger;
+    private final ProductCache productCache;
+    
+    @Value("${catalog.search.full-text:true}")
+    private boolean fullTextSearch;
     
     public Page<Product> findAll(Pageable pageable) {
         return productRepository.findAll(pageable);
     }
     
-    public Page<Product> findAllActive(Pageable pageable) {
-        return productRepository.findByIsActiveTrue(pageable);
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "{'active', #pageable}")
+    public Page<ProductSummary> findAllActive(Pageable pageable) {
+        return productRepository.findActiveSummaries(pageable);
     }
     
     public Optional<Product> findById(Long id) {
         return productRepository.findById(id);
     }
     
+    // Caches immutable read models rather than entities that callers could modify; loaded from the primary since
+    // an entry outlives the replica lag
+    @ReadFromPrimary
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id", unless = "#result == null")
+    public Optional<ProductDetails> findDetailsById(Long id) {
+        return productRepository.findDetailsById(id);
+    }
+    
+    public List<Product> findAllById(Collection<Long> ids) {
+        return productRepository.findAllById(ids);
+    }
+    
     public Product findActiveProductByIdWithCategory(Long id) {
         return productRepository.findActiveProductByIdWithCategory(id);
     }
     
-    public Page<Product> findByCategory(Long categoryId, Pageable pageable) {
-        Optional<Category> category = categoryService.findById(categoryId);
-        return category.map(value -> productRepository.findByCategoryAndIsActiveTrue(value, pageable))
-                      .orElse(Page.empty());
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "{'category', #categoryId, #pageable}")
+    public Page<ProductSummary> findByCategory(Long categoryId, Pageable pageable) {
+        // Category existence comes from the in-memory tree; only the product page hits the database
+        if (!categoryService.isActiveCategory(categoryId)) {
+            return Page.empty();
+        }
+        return productRepository.findActiveSummariesByCategoryId(categoryId, pageable);
+    }
+    
+    /**
+     * Lists active products of a category and all of its descendants, ordered by id. {@code afterId} is
+     * the id decoded from the previous slice's {@code nextCursor}, or null for the first slice.
+     */
+    public CursorSlice<ProductSummary> findByCategoryTree(Long categoryId, Long afterId, int size) {
+        Set<Long> categoryIds = categoryService.findSelfAndDescendantIds(categoryId);
+        if (categoryIds.isEmpty()) {
+            return new CursorSlice<>(List.of(), null);
+        }
+        // Fetch one extra row to know whether another slice follows without a count query
+        List<ProductSummary> rows = productRepository.findActiveSummariesByCategoryIdsAfter(
+                categoryIds, afterId != null ? afterId : 0L, Limit.of(size + 1));
+        return CursorSlice.of(rows, size, product -> KeysetCursor.encode(product.id()));
     }
     
-    public Page<Product> searchByName(String keyword, Pageable pageable) {
-        return productRepository.findActiveProductsByNameContaining(keyword, pageable);
+    /**
+     * Keyset alternative to {@link #findAllActive(Pageable)} ordered by id; never runs a count query.
+     * {@code after} is the {@code nextCursor} of the previous slice, or null for the first one.
+     */
+    public CursorSlice<ProductSummary> scrollActiveById(String after, int size) {
+        long afterId = after != null ? KeysetCursor.decodeId(after) : 0L;
+        List<ProductSummary> rows = productRepository.findActiveSummariesAfterId(afterId, Limit.of(size + 1));
+        return CursorSlice.of(rows, size, product -> KeysetCursor.encode(product.id()));
     }
     
-    public Page<Product> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
-        return productRepository.findActiveProductsByPriceRange(minPrice, maxPrice, pageable);
+    /**
+     * Keyset listing ordered by price, then id.
+     */
+    public CursorSlice<ProductSummary> scrollActiveByPrice(String after, int size) {
+        List<ProductSummary> rows;
+        if (after == null) {
+            rows = productRepository.findActiveSummariesOrderByPrice(Limit.of(size + 1));
+        } else {
+            List<String> key = KeysetCursor.decode(after, 2);
+            rows = productRepository.findActiveSummariesAfterPrice(
+                    KeysetCursor.parse(key.get(0), BigDecimal::new), KeysetCursor.parse(key.get(1), Long::valueOf),
+                    Limit.of(size + 1));
+        }
+        return CursorSlice.of(rows, size,
+                product -> KeysetCursor.encode(product.price().toPlainString(), product.id()));
     }
     
-    public List<Product> findLowStockProducts(Integer threshold) {
-        return productRepository.findLowStockProducts(threshold);
+    // Every product, active or not, in id order; see OrderService#exportSummaries
+    public void exportSummaries(Consumer<ProductSummary> sink) {
+        try (Stream<ProductSummary> products = productRepository.streamSummaries()) {
+            products.forEach(sink);
+        }
+    }
+    
+    public Page<ProductSummary> search(String keyword, Pageable pageable) {
+        if (!fullTextSearch) {
+            return productRepository.findActiveSummariesByNameContaining(keyword, pageable);
+        }
+        String tsQuery = toPrefixTsQuery(keyword);
+        if (tsQuery.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return productRepository.searchActiveSummaries(tsQuery, pageable);
+    }
+    
+    public Page<ProductSummary> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return productRepository.findActiveSummariesByPriceRange(minPrice, maxPrice, pageable);
+    }
+    
+    public List<ProductSummary> findLowStockProducts(Integer threshold) {
+        return productRepository.findLowStockSummaries(threshold);
     }
     
     public List<Object[]> findProductsWithFilters(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice) {
@@ -60,21 +155,51 @@ public class ProductService {
     }
     
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#product.id", condition = "#product.id != null"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
+    })
     public Product save(Product product) {
         return productRepository.save(product);
     }
     
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#product.id", condition = "#product.id != null"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
+    })
     public Product update(Product product) {
+        // Without a version from the client the update overwrites the current row, as it did before versioning;
+        // clients that predate skus leave the current one in place
+        if ((product.getVersion() == null || product.getSku() == null) && product.getId() != null) {
+            productRepository.findById(product.getId()).ifPresent(current -> {
+                if (product.getVersion() == null) {
+                    product.setVersion(current.getVersion());
+                }
+                if (product.getSku() == null) {
+                    product.setSku(current.getSku());
+                }
+            });
+        }
         return productRepository.save(product);
     }
     
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
+    })
     public void deleteById(Long id) {
         productRepository.deleteById(id);
     }
     
+    // Retried when a checkout changed the stock in the meantime, so the product is saved with the current stock
+    @RetryOnConflict
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
+    })
     public void deactivateProduct(Long id) {
         productRepository.findById(id).ifPresent(product -> {
             product.setActive(false);
@@ -82,28 +207,51 @@ public class ProductService {
         });
     }
     
+    @RetryOnConflict
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
     public void updateStock(Long productId, Integer quantity) {
         productRepository.findById(productId).ifPresent(product -> {
-            product.setStock(quantity);
+            // With the ledger on, the table is still to receive the unflushed orders; the version check makes a
+            // flush committing in between retry this update
+            int stock = Math.toIntExact(quantity - inventoryLedger.getUnflushedDelta(productId));
+            inventoryLedger.adjust(productId, stock - product.getStock());
+            product.setStock(stock);
             productRepository.save(product);
         });
     }
     
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
     public void decreaseStock(Long productId, Integer quantity) {
-        productRepository.findById(productId).ifPresent(product -> {
-            product.decreaseStock(quantity);
-            productRepository.save(product);
-        });
+        if (productRepository.decreaseStockIfAvailable(productId, quantity) == 0) {
+            throw new InsufficientStockException("Insufficient stock for product: " + productId);
+        }
+        inventoryLedger.adjust(productId, -quantity);
     }
     
     @Transactional
+    public void decreaseStock(Map<Long, Integer> quantities) {
+        List<Long> rejected = productRepository.decreaseStockInBatch(quantities);
+        if (!rejected.isEmpty()) {
+            throw new InsufficientStockException("Insufficient stock for products: " + rejected);
+        }
+        quantities.forEach((productId, quantity) -> inventoryLedger.adjust(productId, -quantity));
+        productCache.evict(quantities.keySet());
+    }
+    
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
     public void increaseStock(Long productId, Integer quantity) {
-        productRepository.findById(productId).ifPresent(product -> {
-            product.increaseStock(quantity);
-            productRepository.save(product);
-        });
+        productRepository.increaseStockBy(productId, quantity);
+        inventoryLedger.adjust(productId, quantity);
+    }
+    
+    @Transactional
+    public void increaseStock(Map<Long, Integer> quantities) {
+        productRepository.increaseStockInBatch(quantities);
+        quantities.forEach(inventoryLedger::adjust);
+        productCache.evict(quantities.keySet());
     }
     
     public boolean isProductInStock(Long productId, Integer quantity) {
@@ -111,4 +259,12 @@ public class ProductService {
                 .map(product -> product.isInStock(quantity))
                 .orElse(false);
     }
+    
+    // "wireless head" -> "wireless:* & head:*": every word must match, each as a prefix
+    private static String toPrefixTsQuery(String keyword) {
+        return Arrays.stream(keyword.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.BestSeller;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Space-Saving summary of the heaviest ids of a weighted stream in bounded memory. At most {@code capacity}
+ * ids are counted; a new id arriving when all counters are taken replaces the smallest one and inherits its
+ * count, so a count overestimates by at most the smallest count at that time. Every id whose true total is
+ * above {@code total / capacity} is guaranteed to be counted. Not thread-safe.
+ */
+final class SpaceSaving {
+    
+    private record Counter(long id, long count) {
+    }
+    
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.comparingLong(Counter::count).thenComparingLong(Counter::id);
+    
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    // Negative weights (returns) only reduce ids that are counted. An id that is not counted was evicted as the
+    // smallest, or never added, so the return has nothing left to subtract from in this summary
+    void add(long id, long weight) {
+        Counter counter = counters.get(id);
+        if (counter != null) {
+            byCount.remove(counter);
+            counters.remove(id);
+            if (counter.count() + weight > 0) {
+                put(new Counter(id, counter.count() + weight));
+            }
+        } else if (weight <= 0) {
+            return;
+        } else if (counters.size() < capacity) {
+            put(new Counter(id, weight));
+        } else {
+            Counter smallest = byCount.pollFirst();
+            counters.remove(smallest.id());
+            put(new Counter(id, smallest.count() + weight));
+        }
+    }
+    
+    List<BestSeller> top(int limit) {
+        List<BestSeller> top = new ArrayList<>(Math.min(limit, counters.size()));
+        Iterator<Counter> largest = byCount.descendingIterator();
+        while (top.size() < limit && largest.hasNext()) {
+            Counter counter = largest.next();
+            top.add(new BestSeller(counter.id(), counter.count()));
+        }
+        return top;
+    }
+    
+    void forEach(ObjLongConsumer<Long> action) {
+        counters.values().forEach(counter -> action.accept(counter.id(), counter.count()));
+    }
+    
+    void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+    
+    private void put(Counter counter) {
+        counters.put(counter.id(), counter);
+        byCount.add(counter);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.StockAdjustment;
+import com.ecommerce.model.dto.StockSyncResult;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk stock levels pushed by the warehouse, applied in chunks of {@code inventory.stock-sync.chunk-size}
+ * products with a transaction each. A chunk locks its products in ascending id order, as checkouts do, computes
+ * the new levels in memory and writes them with one batched update, so a checkout waits at most for one chunk to
+ * commit. Only the cache entries of updated products are evicted. With the inventory ledger on, levels are
+ * computed including the committed orders it has not flushed yet, and written without them for the flush to apply.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockSync {
+    
+    private final ProductRepository productRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ProductCache productCache;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${inventory.stock-sync.chunk-size:500}")
+    private int chunkSize;
+    
+    /**
+     * Applies the adjustments of each product in request order. Adjustments for unknown products and deltas that
+     * would take stock below zero are skipped. Chunks that committed stay applied if a later one fails.
+     */
+    public StockSyncResult apply(List<StockAdjustment> adjustments) {
+        List<Integer> invalid = new ArrayList<>();
+        List<StockAdjustment> valid = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            if (isValid(adjustments.get(i))) {
+                valid.add(adjustments.get(i));
+            } else {
+                invalid.add(i);
+            }
+        }
+        // Stable sort: the adjustments of a product keep their request order and all land in the same chunk
+        valid.sort(Comparator.comparing(StockAdjustment::productId));
+        
+        int applied = 0;
+        List<Long> notFound = new ArrayList<>();
+        List<Long> belowZero = new ArrayList<>();
+        int from = 0;
+        while (from < valid.size()) {
+            int to = Math.min(from + chunkSize, valid.size());
+            while (to < valid.size() && valid.get(to).productId().equals(valid.get(to - 1).productId())) {
+                to++;
+            }
+            List<StockAdjustment> adjustmentsOfChunk = valid.subList(from, to);
+            Chunk chunk = transactionTemplate.execute(status -> applyChunk(adjustmentsOfChunk));
+            productCache.evict(chunk.stock.keySet());
+            applied += chunk.applied;
+            notFound.addAll(chunk.notFound);
+            belowZero.addAll(chunk.belowZero);
+            from = to;
+        }
+        return new StockSyncResult(adjustments.size(), applied, invalid, notFound, belowZero);
+    }
+    
+    private Chunk applyChunk(List<StockAdjustment> adjustments) {
+        Map<Long, Integer> before = new HashMap<>();
+        List<Long> productIds = adjustments.stream().map(StockAdjustment::productId).distinct().toList();
+        productRepository.findStockForUpdate(productIds).forEach(row -> before.put((Long) row[0], (Integer) row[1]));
+        // Stock levels as checkouts see them: the table plus the orders the ledger has not flushed, read under the
+        // row locks taken above
+        Map<Long, Long> unflushed = new HashMap<>();
+        before.keySet().forEach(productId -> unflushed.put(productId, inventoryLedger.getUnflushedDelta(productId)));
+        
+        Chunk chunk = new Chunk();
+        Map<Long, Long> levels = new HashMap<>();
+        for (StockAdjustment adjustment : adjustments) {
+            Long productId = adjustment.productId();
+            if (!before.containsKey(productId)) {
+                chunk.notFound.add(productId);
+                continue;
+            }
+            long current = levels.getOrDefault(productId, before.get(productId) + unflushed.get(productId));
+            long next = adjustment.isAbsolute() ? adjustment.stock() : current + adjustment.delta();
+            long written = next - unflushed.get(productId);
+            // Integer overflow is reported the same way, it cannot be a real stock level either
+            if (next < 0 || written > Integer.MAX_VALUE) {
+                chunk.belowZero.add(productId);
+                continue;
+            }
+            levels.put(productId, next);
+            chunk.stock.put(productId, (int) written);
+            chunk.applied++;
+        }
+        productRepository.setStockInBatch(chunk.stock);
+        chunk.stock.forEach((productId, stock) -> inventoryLedger.adjust(productId, stock - before.get(productId)));
+        return chunk;
+    }
+    
+    private static boolean isValid(StockAdjustment adjustment) {
+        return adjustment != null && adjustment.productId() != null
+                && (adjustment.stock() == null) != (adjustment.delta() == null)
+                && (adjustment.stock() == null || adjustment.stock() >= 0);
+    }
+    
+    // The new stock of the updated products and the skipped adjustments of one chunk
+    private static final class Chunk {
+        private final Map<Long, Integer> stock = new LinkedHashMap<>();
+        private final List<Long> notFound = new ArrayList<>();
+        private final List<Long> belowZero = new ArrayList<>();
+        private int applied;
+    }
+}
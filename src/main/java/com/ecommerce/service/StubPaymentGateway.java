@@ -0,0 +1,50 @@
+package com.ecommerce.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for a payment provider: approves after a fixed latency, declines amounts above a limit and
+ * fails a configurable share of calls transiently. Outcomes are remembered per transaction id like a real gateway.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.gateway", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+    
+    private final Map<String, Result> outcomes = new ConcurrentHashMap<>();
+    
+    @Value("${payments.gateway.stub.latency:50ms}")
+    private Duration latency;
+    
+    @Value("${payments.gateway.stub.decline-above:10000}")
+    private BigDecimal declineAbove;
+    
+    @Value("${payments.gateway.stub.transient-failure-rate:0.0}")
+    private double transientFailureRate;
+    
+    @Override
+    public Result charge(String transactionId, BigDecimal amount, String paymentMethod) {
+        Result previous = outcomes.get(transactionId);
+        if (previous != null) {
+            return previous;
+        }
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayException("Interrupted while charging " + transactionId, e);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < transientFailureRate) {
+            throw new PaymentGatewayException("Gateway unavailable");
+        }
+        Result result = amount.compareTo(declineAbove) > 0 ? Result.decline("Amount above limit") : Result.approve();
+        return outcomes.computeIfAbsent(transactionId, id -> result);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.service;
 
+import com.ecommerce.config.ReadFromPrimary;
 import com.ecommerce.model.entity.User;
 import com.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -20,14 +21,19 @@ public class UserService {
         return userRepository.findAll();
     }
     
+    // The lookups below fill the second-level cache, which would keep a row or a "not found" read from a lagging
+    // replica well past the lag, so their misses go to the primary
+    @ReadFromPrimary
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
     
+    @ReadFromPrimary
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
     
+    @ReadFromPrimary
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
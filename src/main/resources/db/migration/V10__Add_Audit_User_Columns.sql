@@ -0,0 +1,9 @@
+-- The entities map @CreatedBy/@LastModifiedBy columns that the original table migrations never created,
+-- so schema validation and inserts failed on a freshly migrated PostgreSQL database.
+-- IF NOT EXISTS keeps this safe on databases where the columns were added by hand.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS created_by VARCHAR(255), ADD COLUMN IF NOT EXISTS updated_by VARCHAR(255);
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS created_by VARCHAR(255), ADD COLUMN IF NOT EXISTS updated_by VARCHAR(255);
+ALTER TABLE products ADD COLUMN IF NOT EXISTS created_by VARCHAR(255), ADD COLUMN IF NOT EXISTS updated_by VARCHAR(255);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS created_by VARCHAR(255), ADD COLUMN IF NOT EXISTS updated_by VARCHAR(255);
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS created_by VARCHAR(255), ADD COLUMN IF NOT EXISTS updated_by VARCHAR(255);
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS created_by VARCHAR(255), ADD COLUMN IF NOT EXISTS updated_by VARCHAR(255);
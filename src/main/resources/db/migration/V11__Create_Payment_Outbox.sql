@@ -0,0 +1,22 @@
+-- Payments accepted by POST /api/payments/async are charged by a background worker that drains this table.
+-- A worker claims an event by moving next_attempt_at past its lease, so events of a crashed worker are retried.
+CREATE TABLE payment_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    payment_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    last_error VARCHAR(500),
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    
+    CONSTRAINT fk_payment_outbox_payment
+        FOREIGN KEY (payment_id)
+        REFERENCES payments(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_payment_outbox_due ON payment_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX idx_payment_outbox_payment ON payment_outbox(payment_id);
+
+-- The transaction id is the idempotency key of a payment, both for clients and for the gateway
+CREATE UNIQUE INDEX idx_payments_transaction_id ON payments(transaction_id);
@@ -0,0 +1,16 @@
+-- Completed payments rolled up per payment day and method, maintained in the transactions that complete or
+-- un-complete a payment. The revenue and statistics endpoints read these rows instead of scanning payments.
+CREATE TABLE payment_daily_stats (
+    stat_date DATE NOT NULL,
+    payment_method VARCHAR(50) NOT NULL,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    completed_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    
+    PRIMARY KEY (stat_date, payment_method)
+);
+
+INSERT INTO payment_daily_stats (stat_date, payment_method, completed_count, completed_amount)
+SELECT CAST(payment_date AS DATE), payment_method, COUNT(*), SUM(amount)
+FROM payments
+WHERE status = 'COMPLETED' AND payment_date IS NOT NULL
+GROUP BY CAST(payment_date AS DATE), payment_method;
@@ -0,0 +1,13 @@
+-- Order count and revenue per closed day (created_at date before today). Closed days are written once by the
+-- day-closing job and then only adjusted when an order is deleted; today is always aggregated from orders.
+CREATE TABLE daily_order_stats (
+    stat_date DATE PRIMARY KEY,
+    order_count BIGINT NOT NULL,
+    total_revenue DECIMAL(19,2) NOT NULL
+);
+
+INSERT INTO daily_order_stats (stat_date, order_count, total_revenue)
+SELECT CAST(created_at AS DATE), COUNT(*), SUM(total_amount)
+FROM orders
+WHERE created_at < CURRENT_DATE
+GROUP BY CAST(created_at AS DATE);
@@ -0,0 +1,5 @@
+-- Supplier stock keeping unit: the natural key bulk imports upsert on. Optional for products created one at a
+-- time; a unique index admits any number of NULLs.
+ALTER TABLE products ADD COLUMN sku VARCHAR(64);
+
+CREATE UNIQUE INDEX idx_products_sku ON products(sku);
@@ -0,0 +1,5 @@
+-- Optimistic locking: JPA bumps the version on every entity update and rejects one that read an older version.
+-- Bulk and JDBC updates of these tables increment it themselves, so a concurrent entity update cannot overwrite them.
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE payments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
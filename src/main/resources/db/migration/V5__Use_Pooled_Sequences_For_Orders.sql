@@ -0,0 +1,4 @@
+-- Orders and order items use Hibernate's pooled sequence optimizer instead of IDENTITY
+-- so inserts can be JDBC-batched. The sequence step must match the entity allocationSize.
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
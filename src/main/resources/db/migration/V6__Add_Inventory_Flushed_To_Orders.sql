@@ -0,0 +1,6 @@
+-- Orders placed through the in-memory inventory ledger are written with inventory_flushed = false
+-- until their stock decrement has been flushed to the products table. On startup the remaining
+-- unflushed orders are reconciled from their order_items.
+ALTER TABLE orders ADD COLUMN inventory_flushed BOOLEAN NOT NULL DEFAULT TRUE;
+
+CREATE INDEX idx_orders_inventory_unflushed ON orders(id) WHERE inventory_flushed = FALSE;
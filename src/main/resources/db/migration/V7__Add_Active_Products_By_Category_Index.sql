@@ -0,0 +1,3 @@
+-- Supports keyset listing of active products across a category subtree:
+-- WHERE is_active AND category_id IN (...) AND id > ? ORDER BY id
+CREATE INDEX idx_products_active_category_id ON products(category_id, id) WHERE is_active = TRUE;
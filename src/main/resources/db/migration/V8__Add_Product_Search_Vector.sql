@@ -0,0 +1,9 @@
+-- Full-text search over product name (weight A) and description (weight B), replacing the
+-- LIKE '%keyword%' scan. The column is generated, so every insert and update keeps it current.
+ALTER TABLE products ADD COLUMN search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX idx_products_search_vector ON products USING GIN (search_vector);
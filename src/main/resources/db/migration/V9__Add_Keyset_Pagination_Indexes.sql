@@ -0,0 +1,7 @@
+-- Indexes matching the ORDER BY of the keyset (/scroll) listings, so each slice is an index range scan
+CREATE INDEX idx_products_active_price_id ON products(price, id) WHERE is_active = TRUE;
+CREATE INDEX idx_orders_created_at_id ON orders(created_at DESC, id DESC);
+CREATE INDEX idx_orders_user_created_at_id ON orders(user_id, created_at DESC, id DESC);
+
+-- Superseded by the user_id prefix of idx_orders_user_created_at_id
+DROP INDEX idx_orders_user;
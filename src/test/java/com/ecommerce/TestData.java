@@ -0,0 +1,55 @@
+package com.ecommerce;
+
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderItem;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Unsaved entities for tests to save through their own repositories or services. Tests share one database per
+ * context, so every category gets a name of its own.
+ */
+public final class TestData {
+    
+    private TestData() {
+    }
+    
+    public static Category category() {
+        return category(null);
+    }
+    
+    public static Category category(Category parent) {
+        return Category.builder()
+                .name("Category " + UUID.randomUUID())
+                .parent(parent)
+                .isActive(true)
+                .build();
+    }
+    
+    public static Product product(Category category, int stock) {
+        return Product.builder()
+                .name("Test SKU")
+                .price(new BigDecimal("10.00"))
+                .stock(stock)
+                .category(category)
+                .isActive(true)
+                .build();
+    }
+    
+    // The item references the product by id only, as a checkout request does
+    public static Order order(User user, Product product, int quantity) {
+        Order order = Order.builder()
+                .user(user)
+                .shippingAddress("1 Test Street")
+                .build();
+        order.getOrderItems().add(OrderItem.builder()
+                .product(Product.builder().id(product.getId()).build())
+                .quantity(quantity)
+                .build());
+        return order;
+    }
+}
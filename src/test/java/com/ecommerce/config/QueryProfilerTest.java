@@ -0,0 +1,113 @@
+package com.ecommerce.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// application-test.properties turns on fail-on-violation, so a request over its budget fails the call
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryProfilerTest.StatementController.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:profilerdb;LOCK_TIMEOUT=10000",
+        "persistence.profiler.statement-budgets.StatementController.distinct=3"
+})
+class QueryProfilerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void resetTotals() throws Exception {
+        mockMvc.perform(delete("/actuator/queries")).andExpect(status().isNoContent());
+    }
+    
+    @Test
+    void requestsWithinBudgetReportTheirStatements() throws Exception {
+        mockMvc.perform(get("/api/statements/distinct").param("count", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Count", "3"))
+                .andExpect(header().string("Server-Timing", containsString("3 statements")));
+        mockMvc.perform(get("/api/statements/repeated").param("times", "4"))
+                .andExpect(status().isOk());
+        
+        mockMvc.perform(get("/actuator/queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['StatementController.distinct'].requests").value(1))
+                .andExpect(jsonPath("$['StatementController.distinct'].statements").value(3))
+                .andExpect(jsonPath("$['StatementController.repeated'].maxStatements").value(4))
+                .andExpect(jsonPath("$['StatementController.repeated'].violations").value(0));
+    }
+    
+    @Test
+    void repeatingAStatementFailsTheRequest() throws Exception {
+        QueryProfiler.BudgetExceededException e = assertThrows(QueryProfiler.BudgetExceededException.class,
+                () -> mockMvc.perform(get("/api/statements/repeated").param("times", "5")));
+        assertTrue(e.getMessage().contains("5 times the same (likely N+1)"), e.getMessage());
+        
+        mockMvc.perform(get("/actuator/queries"))
+                .andExpect(jsonPath("$['StatementController.repeated'].violations").value(1))
+                .andExpect(jsonPath("$['StatementController.repeated'].lastViolation",
+                        containsString("likely N+1")));
+    }
+    
+    @Test
+    void exceedingTheEndpointBudgetFailsTheRequest() throws Exception {
+        QueryProfiler.BudgetExceededException e = assertThrows(QueryProfiler.BudgetExceededException.class,
+                () -> mockMvc.perform(get("/api/statements/distinct").param("count", "4")));
+        assertTrue(e.getMessage().contains("4 statements, budget 3"), e.getMessage());
+        
+        mockMvc.perform(get("/actuator/queries"))
+                .andExpect(jsonPath("$['StatementController.distinct'].violations").value(1))
+                .andExpect(jsonPath("$['StatementController.distinct'].lastViolation").value("4 statements, budget 3"));
+    }
+    
+    @RestController
+    @RequestMapping("/api/statements")
+    static class StatementController {
+        
+        private final JdbcTemplate jdbcTemplate;
+        
+        StatementController(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+        
+        // The same statement with another parameter each time, as a lazy load per row would run it
+        @GetMapping("/repeated")
+        int repeated(@RequestParam int times) {
+            int found = 0;
+            for (long id = 1; id <= times; id++) {
+                found += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE id = ?", Integer.class, id);
+            }
+            return found;
+        }
+        
+        @GetMapping("/distinct")
+        int distinct(@RequestParam int count) {
+            int sum = 0;
+            for (int i = 1; i <= count; i++) {
+                sum += jdbcTemplate.queryForObject("SELECT " + i, Integer.class);
+            }
+            return sum;
+        }
+    }
+}
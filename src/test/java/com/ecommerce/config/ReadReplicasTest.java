@@ -0,0 +1,166 @@
+package com.ecommerce.config;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The replica is a second H2 database with the primary's schema but none of its rows, like a replica that has not
+// replayed anything yet: a read that finds a row written in the test went to the primary
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingdb;LOCK_TIMEOUT=10000",
+        "datasource.replicas.urls=" + ReadReplicasTest.REPLICA_URL,
+        "spring.jpa.open-in-view=false"
+})
+class ReadReplicasTest {
+    
+    static final String REPLICA_URL = "jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Category category;
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        category = categoryService.save(TestData.category());
+        product = productRepository.save(TestData.product(category, 7));
+    }
+    
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        double replicaReads = readConnections("replica");
+        
+        Product read = readOnly(() -> productRepository.findById(product.getId()).orElse(null));
+        
+        assertNull(read);
+        assertEquals(replicaReads + 1, readConnections("replica"));
+    }
+    
+    @Test
+    void writesAndReadsFromPrimaryGoToThePrimary() {
+        double replicaReads = readConnections("replica");
+        double primaryReads = readConnections("primary");
+        
+        productService.updateStock(product.getId(), 12);
+        Integer written = transactionTemplate.execute(status ->
+                productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(12, written);
+        assertEquals(12, productService.findDetailsById(product.getId()).orElseThrow().stock());
+        assertTrue(categoryService.isActiveCategory(category.getId()));
+        assertTrue(categoryService.findByName(category.getName()).isPresent());
+        
+        assertEquals(replicaReads, readConnections("replica"));
+        assertTrue(readConnections("primary") > primaryReads);
+    }
+    
+    @Test
+    void aWriteKeepsTheClientOnThePrimaryThroughItsCookie() throws Exception {
+        String tree = "/api/products/category/" + category.getId() + "/tree";
+        mockMvc.perform(get(tree))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+        
+        Cookie cookie = mockMvc.perform(post("/api/categories")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Routing " + UUID.randomUUID() + "\",\"active\":true}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+        
+        mockMvc.perform(get(tree).cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(product.getId()));
+        
+        // Past its time, the cookie no longer pins anything
+        Cookie expired = new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(System.currentTimeMillis() - 1));
+        mockMvc.perform(get(tree).cookie(expired))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+    }
+    
+    private <T> T readOnly(Supplier<T> read) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> read.get());
+    }
+    
+    private double readConnections(String target) {
+        return meterRegistry.get("datasource.read.connections").tag("target", target).counter().count();
+    }
+    
+    @TestConfiguration
+    static class ReplicaSchema {
+        
+        // Hibernate creates the schema on the primary only; copied as soon as it exists, before anything reads
+        @Bean
+        String replicaSchema(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) throws SQLException {
+            List<String> schema = jdbcTemplate.queryForList("SCRIPT NODATA", String.class);
+            try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                 Statement statement = replica.createStatement()) {
+                for (String sql : schema) {
+                    if (!sql.startsWith("CREATE USER")) {
+                        statement.execute(sql);
+                    }
+                }
+            }
+            return REPLICA_URL;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.model.dto.ProductImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportReaderTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> rowLines = new ArrayList<>();
+    private final List<ProductImportRow> rows = new ArrayList<>();
+    private final List<Long> rejectedLines = new ArrayList<>();
+    
+    @Test
+    void csvColumnsMatchInAnyOrderAndCase() throws IOException {
+        read(ExportWriter.Format.CSV, """
+                PRICE,sku,Name,unknown,stock,categoryId
+                9.99,A-1,Widget,ignored,3,1
+                ,A-2,,x,,
+                """);
+        
+        assertEquals(List.of(2L, 3L), rowLines);
+        assertEquals(new ProductImportRow("A-1", "Widget", null, new BigDecimal("9.99"), 3, 1L, null, null),
+                rows.get(0));
+        // Empty values are null, left to the import's validation
+        assertNull(rows.get(1).name());
+        assertNull(rows.get(1).price());
+    }
+    
+    @Test
+    void quotedCsvValuesSpanLinesAndKeepTheStartLine() throws IOException {
+        read(ExportWriter.Format.CSV, """
+                sku,name,description
+                A-1,"Widget, large","first line
+                second line with ""quotes""\"
+                A-2,Gadget,plain
+                """);
+        
+        assertEquals(List.of(2L, 4L), rowLines);
+        assertEquals("Widget, large", rows.get(0).name());
+        assertEquals("first line\nsecond line with \"quotes\"", rows.get(0).description());
+        assertEquals("A-2", rows.get(1).sku());
+    }
+    
+    @Test
+    void malformedRowsAreRejectedAndReadingCarriesOn() throws IOException {
+        read(ExportWriter.Format.CSV, """
+                sku,price
+                A-1,not a number
+                A-2
+                A-3,1.50
+                """);
+        
+        assertEquals(List.of(2L, 3L), rejectedLines);
+        assertEquals(List.of(4L), rowLines);
+        assertEquals(new BigDecimal("1.50"), rows.get(0).price());
+    }
+    
+    @Test
+    void ndjsonRejectsBrokenLinesAndSkipsBlankOnes() throws IOException {
+        read(ExportWriter.Format.NDJSON, """
+                {"sku":"A-1","stock":2}
+                
+                {"sku":
+                null
+                {"sku":"A-2","stock":"many"}
+                {"sku":"A-3","isActive":false}
+                """);
+        
+        assertEquals(List.of(3L, 4L, 5L), rejectedLines);
+        assertEquals(List.of(1L, 6L), rowLines);
+        assertEquals(2, rows.get(0).stock());
+        assertEquals(Boolean.FALSE, rows.get(1).isActive());
+    }
+    
+    @Test
+    void emptyBodyReadsNothing() throws IOException {
+        read(ExportWriter.Format.CSV, "\n\n");
+        read(ExportWriter.Format.NDJSON, "");
+        
+        assertTrue(rows.isEmpty());
+        assertTrue(rejectedLines.isEmpty());
+    }
+    
+    private void read(ExportWriter.Format format, String body) throws IOException {
+        ImportReader.read(format, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                ProductImportRow.class, objectMapper,
+                (line, row) -> {
+                    rowLines.add(line);
+                    rows.add(row);
+                },
+                (line, message) -> rejectedLines.add(line));
+    }
+}
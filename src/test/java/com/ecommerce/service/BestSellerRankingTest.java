@@ -0,0 +1,137 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.BestSeller;
+import com.ecommerce.service.BestSellerRanking.Window;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BestSellerRankingTest {
+    
+    private static final long HOUR = 500_000;
+    
+    @Test
+    void spaceSavingIsExactWithinCapacity() {
+        SpaceSaving summary = new SpaceSaving(3);
+        summary.add(1, 5);
+        summary.add(2, 2);
+        summary.add(1, 1);
+        summary.add(3, 4);
+        
+        assertEquals(List.of(new BestSeller(1L, 6), new BestSeller(3L, 4), new BestSeller(2L, 2)), summary.top(10));
+        assertEquals(List.of(new BestSeller(1L, 6)), summary.top(1));
+    }
+    
+    @Test
+    void spaceSavingKeepsHeavyHittersAndBoundsTheOverestimate() {
+        SpaceSaving summary = new SpaceSaving(4);
+        Map<Long, Long> exact = new HashMap<>();
+        // Ids 1 and 2 take most of the stream; ids 10 to 59 arrive once each and compete for the other counters
+        for (long i = 0; i < 50; i++) {
+            add(summary, exact, 1, 10);
+            add(summary, exact, 2, 5);
+            add(summary, exact, 10 + i, 1);
+        }
+        long total = exact.values().stream().mapToLong(Long::longValue).sum();
+        
+        List<BestSeller> top = summary.top(2);
+        assertEquals(List.of(1L, 2L), top.stream().map(BestSeller::id).toList());
+        Map<Long, Long> counted = new HashMap<>();
+        summary.forEach(counted::put);
+        assertEquals(4, counted.size());
+        counted.forEach((id, count) -> {
+            // Never below the true count, and above it by at most total / capacity
+            assertTrue(count >= exact.get(id), "undercounted " + id);
+            assertTrue(count - exact.get(id) <= total / 4, "overcounted " + id);
+        });
+    }
+    
+    @Test
+    void spaceSavingReturnsReduceCountedIdsOnly() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1, 5);
+        summary.add(2, 3);
+        summary.add(1, -2);
+        summary.add(2, -3);
+        summary.add(7, -4);
+        
+        assertEquals(List.of(new BestSeller(1L, 3)), summary.top(10));
+    }
+    
+    @Test
+    void windowsFollowTheHourOfEachDelivery() {
+        BestSellerRanking ranking = new BestSellerRanking(10);
+        ranking.record(1, 5, HOUR);
+        ranking.record(2, 8, HOUR - 30);
+        ranking.record(3, 2, HOUR - 24 * 8);
+        
+        // All-time counts are read live, windows only after a refresh
+        assertEquals(List.of(new BestSeller(2L, 8), new BestSeller(1L, 5), new BestSeller(3L, 2)),
+                ranking.top(Window.ALL, 10));
+        assertEquals(List.of(), ranking.top(Window.LAST_24H, 10));
+        
+        ranking.refreshWindows(HOUR);
+        assertEquals(List.of(new BestSeller(1L, 5)), ranking.top(Window.LAST_24H, 10));
+        assertEquals(List.of(new BestSeller(2L, 8), new BestSeller(1L, 5)), ranking.top(Window.LAST_7D, 10));
+        assertEquals(List.of(new BestSeller(2L, 8)), ranking.top(Window.LAST_7D, 1));
+        
+        // The current hour is added on every refresh, closed hours once per hour
+        ranking.record(1, 4, HOUR);
+        ranking.refreshWindows(HOUR);
+        assertEquals(List.of(new BestSeller(1L, 9)), ranking.top(Window.LAST_24H, 10));
+        
+        ranking.refreshWindows(HOUR + 24);
+        assertEquals(List.of(), ranking.top(Window.LAST_24H, 10));
+        assertEquals(List.of(new BestSeller(1L, 9), new BestSeller(2L, 8)), ranking.top(Window.LAST_7D, 10));
+        
+        ranking.refreshWindows(HOUR - 30 + 24 * 7);
+        assertEquals(List.of(new BestSeller(1L, 9)), ranking.top(Window.LAST_7D, 10));
+    }
+    
+    @Test
+    void returnsLowerTheWindowedCounts() {
+        BestSellerRanking ranking = new BestSellerRanking(10);
+        ranking.record(1, 5, HOUR);
+        ranking.record(2, 4, HOUR);
+        ranking.record(1, -3, HOUR);
+        ranking.refreshWindows(HOUR);
+        
+        assertEquals(List.of(new BestSeller(2L, 4), new BestSeller(1L, 2)), ranking.top(Window.LAST_24H, 10));
+        assertThrows(IllegalArgumentException.class, () -> Window.of("30d"));
+        assertEquals(Window.LAST_7D, Window.of("7d"));
+    }
+    
+    @Test
+    void returnsLeaveTheWindowsOfTheirDeliveryHour() {
+        BestSellerRanking ranking = new BestSellerRanking(10);
+        ranking.record(1, 5, HOUR - 3);
+        ranking.record(2, 4, HOUR - 3);
+        ranking.record(3, 6, HOUR - 24 * 8);
+        ranking.refreshWindows(HOUR);
+        assertEquals(List.of(new BestSeller(1L, 5), new BestSeller(2L, 4)), ranking.top(Window.LAST_24H, 10));
+        
+        // Returned within the same hour as the refresh: the closed delivery hour is merged again right away
+        ranking.record(1, -5, HOUR - 3);
+        ranking.refreshWindows(HOUR);
+        assertEquals(List.of(new BestSeller(2L, 4)), ranking.top(Window.LAST_24H, 10));
+        assertEquals(List.of(new BestSeller(2L, 4)), ranking.top(Window.LAST_7D, 10));
+        assertEquals(List.of(new BestSeller(3L, 6), new BestSeller(2L, 4)), ranking.top(Window.ALL, 10));
+        
+        // A delivery older than the longest window only counted all-time, and so does its return
+        ranking.record(3, -6, HOUR - 24 * 8);
+        ranking.refreshWindows(HOUR + 1);
+        assertEquals(List.of(new BestSeller(2L, 4)), ranking.top(Window.LAST_7D, 10));
+        assertEquals(List.of(new BestSeller(2L, 4)), ranking.top(Window.ALL, 10));
+    }
+    
+    private static void add(SpaceSaving summary, Map<Long, Long> exact, long id, long weight) {
+        summary.add(id, weight);
+        exact.merge(id, weight, Long::sum);
+    }
+}
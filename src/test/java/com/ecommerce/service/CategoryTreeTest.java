@@ -0,0 +1,95 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.dto.CategorySummary;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class CategoryTreeTest {
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Test
+    void treeIndexesChildrenAndDescendants() {
+        // Electronics > Phones > Cases, Electronics > Laptops; Books is a second root
+        CategoryTree tree = CategoryTree.of(List.of(
+                category(1L, null), category(2L, 1L), category(3L, 2L), category(4L, 1L), category(5L, null)));
+        
+        assertEquals(List.of(1L, 5L), ids(tree.roots()));
+        assertEquals(List.of(2L, 4L), ids(tree.children(1L)));
+        assertEquals(List.of(), tree.children(3L));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), tree.descendantIds(1L));
+        assertEquals(Set.of(3L), tree.descendantIds(3L));
+        assertEquals(Set.of(), tree.descendantIds(99L));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(tree.all()));
+    }
+    
+    @Test
+    void categoriesBelowAnInactiveParentAreUnreachable() {
+        // Parent 2 is inactive and so not in the list: 3 stays known but hangs off nothing
+        CategoryTree tree = CategoryTree.of(List.of(category(1L, null), category(3L, 2L)));
+        
+        assertTrue(tree.contains(3L));
+        assertEquals(List.of(1L), ids(tree.roots()));
+        assertEquals(List.of(), tree.children(2L));
+        assertEquals(Set.of(1L), tree.descendantIds(1L));
+    }
+    
+    @Test
+    void writesAreVisibleToTheNextRead() {
+        Category parent = categoryService.save(newCategory(null));
+        assertTrue(categoryService.isActiveCategory(parent.getId()));
+        
+        Category child = categoryService.save(newCategory(parent));
+        assertEquals(List.of(child.getId()), ids(categoryService.findSubCategories(parent.getId())));
+        assertEquals(Set.of(parent.getId(), child.getId()), categoryService.findSelfAndDescendantIds(parent.getId()));
+        
+        categoryService.deactivateCategory(child.getId());
+        assertFalse(categoryService.isActiveCategory(child.getId()));
+        assertEquals(List.of(), categoryService.findSubCategories(parent.getId()));
+    }
+    
+    @Test
+    void refreshPicksUpWritesMadeElsewhere() {
+        categoryService.findAllActive();
+        // Written past the service, as another application instance would
+        Category category = categoryRepository.save(newCategory(null));
+        assertFalse(categoryService.isActiveCategory(category.getId()));
+        
+        categoryService.refreshCategoryTree();
+        assertTrue(categoryService.isActiveCategory(category.getId()));
+    }
+    
+    private static CategorySummary category(Long id, Long parentId) {
+        return new CategorySummary(id, "Category " + id, null, parentId);
+    }
+    
+    private static List<Long> ids(List<CategorySummary> categories) {
+        return categories.stream().map(CategorySummary::id).toList();
+    }
+    
+    private static Category newCategory(Category parent) {
+        return Category.builder()
+                .name("Tree " + UUID.randomUUID())
+                .parent(parent)
+                .isActive(true)
+                .build();
+    }
+}
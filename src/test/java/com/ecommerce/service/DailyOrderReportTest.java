@@ -0,0 +1,106 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class DailyOrderReportTest {
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private DailyOrderReport dailyOrderReport;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void reportMatchesTheOrdersTableAcrossClosedAndOpenDays() {
+        LocalDate today = LocalDate.now();
+        Product product = createProduct();
+        createOrder(product, 1, today.minusDays(3).atTime(9, 0));
+        Order late = createOrder(product, 2, today.minusDays(3).atTime(18, 0));
+        createOrder(product, 3, today.minusDays(2).atTime(12, 0));
+        createOrder(product, 4, null);
+        
+        orderService.backfillDailyOrderReport();
+        assertReportMatchesOrders(today.minusDays(5).atStartOfDay());
+        // Starting within a closed day counts only part of it, which comes from the orders table
+        assertReportMatchesOrders(today.minusDays(3).atTime(12, 0));
+        
+        // A deleted order leaves its closed day, even though closed days are otherwise frozen
+        orderService.deleteById(late.getId());
+        assertReportMatchesOrders(today.minusDays(5).atStartOfDay());
+        
+        // Closing again finds nothing new to close and changes nothing
+        dailyOrderReport.closeDays();
+        assertReportMatchesOrders(today.minusDays(5).atStartOfDay());
+    }
+    
+    private void assertReportMatchesOrders(LocalDateTime from) {
+        LocalDateTime to = LocalDate.now().plusDays(1).atStartOfDay();
+        assertEquals(byDay(orderRepository.getDailyOrderReport(from, to)),
+                byDay(orderService.getDailyOrderReport(from)));
+    }
+    
+    // Day -> "count / revenue", independent of the numeric and date types each side returns
+    private static Map<LocalDate, String> byDay(List<Object[]> rows) {
+        Map<LocalDate, String> days = new TreeMap<>();
+        for (Object[] row : rows) {
+            LocalDate day = row[0] instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) row[0];
+            BigDecimal revenue = new BigDecimal(row[2].toString()).stripTrailingZeros();
+            days.put(day, ((Number) row[1]).longValue() + " / " + revenue.toPlainString());
+        }
+        return days;
+    }
+    
+    private Order createOrder(Product product, int quantity, LocalDateTime createdAt) {
+        Order created = orderService.createOrder(TestData.order(userRepository.findAll().get(0), product, quantity));
+        // created_at is set on insert and not updatable through the entity
+        if (createdAt != null) {
+            jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                    Timestamp.valueOf(createdAt), created.getId());
+        }
+        return created;
+    }
+    
+    private Product createProduct() {
+        Category category = categoryRepository.save(TestData.category());
+        return productRepository.save(TestData.product(category, 100));
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// A database of its own for the second context; the scheduled flush is pushed out so each test decides when
+// deltas reach the products table
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgerdb;LOCK_TIMEOUT=10000",
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.flush-interval-ms=3600000"
+})
+class InventoryLedgerTest {
+    
+    private static final int STOCK = 10;
+    private static final int QUANTITY = 2;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(TestData.category());
+        product = productRepository.save(TestData.product(category, STOCK));
+    }
+    
+    @Test
+    void cancellationOfAFlushedOrderIsWrittenRightAway() {
+        Order order = createOrder();
+        inventoryLedger.flush();
+        assertEquals(STOCK - QUANTITY, tableStock());
+        
+        orderService.cancelOrder(order.getId());
+        
+        // Nothing is left in memory to lose: the products table already holds the returned stock
+        assertEquals(STOCK, tableStock());
+        assertEquals(STOCK, recoveredStock());
+        assertEquals(STOCK, inventoryLedger.getAvailableStock(product.getId()));
+    }
+    
+    @Test
+    void cancellationOfAnUnflushedOrderRecoversToTheSameStock() {
+        Order order = createOrder();
+        orderService.cancelOrder(order.getId());
+        
+        // The reservation is still pending while the release is written, so a restart now takes the reservation
+        // from the unflushed order to get back to the original stock
+        assertEquals(STOCK + QUANTITY, tableStock());
+        assertEquals(STOCK, recoveredStock());
+        assertEquals(STOCK, inventoryLedger.getAvailableStock(product.getId()));
+        
+        inventoryLedger.flush();
+        assertEquals(STOCK, tableStock());
+        assertEquals(STOCK, recoveredStock());
+    }
+    
+    @Test
+    void reservationsAreRejectedUntilRecoveryHasRun() {
+        // The context's ledger recovered before any test ran; a fresh one has not
+        InventoryLedger ledger = new InventoryLedger(productRepository, orderRepository, orderItemRepository,
+                transactionTemplate, productCache);
+        
+        assertThrows(IllegalStateException.class, () -> ledger.reserve(1L, Map.of(product.getId(), QUANTITY)));
+        assertEquals(STOCK, tableStock());
+    }
+    
+    private Order createOrder() {
+        Order created = orderService.createOrder(TestData.order(userRepository.findAll().get(0), product, QUANTITY));
+        assertEquals(STOCK - QUANTITY, inventoryLedger.getAvailableStock(product.getId()));
+        return created;
+    }
+    
+    private int tableStock() {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+    
+    // The stock InventoryLedger#recover would leave after a restart at this point
+    private int recoveredStock() {
+        int unflushed = orderItemRepository.findUnflushedQuantitiesByProduct().stream()
+                .filter(row -> product.getId().equals(row[0]))
+                .mapToInt(row -> ((Number) row[1]).intValue())
+                .sum();
+        return tableStock() - unflushed;
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.dto.CursorSlice;
+import com.ecommerce.model.dto.ProductSummary;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class KeysetCursorTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Test
+    void cursorRoundTripsItsValues() {
+        String cursor = KeysetCursor.encode("2024-05-01T10:15:30.123", 42L);
+        
+        assertEquals(List.of("2024-05-01T10:15:30.123", "42"), KeysetCursor.decode(cursor, 2));
+        assertEquals(7L, KeysetCursor.decodeId(KeysetCursor.encode(7L)));
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"), "not URL-safe: " + cursor);
+    }
+    
+    @Test
+    void malformedCursorsAreRejectedAsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!", 1));
+        // Valid base64, but the wrong number of values or a value of the wrong type
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(KeysetCursor.encode(1L), 2));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(KeysetCursor.encode(1L, 2L), 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decodeId(KeysetCursor.encode("abc")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decodeId(
+                Base64.getUrlEncoder().encodeToString(new byte[0])));
+        assertThrows(IllegalArgumentException.class, () -> productService.scrollActiveByPrice(
+                KeysetCursor.encode("cheap", 1L), 10));
+        String text = Base64.getUrlEncoder().encodeToString("12.50".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> productService.scrollActiveByPrice(text, 10));
+    }
+    
+    @Test
+    void sliceSignalsMoreRowsWithTheCursorOfItsLastRow() {
+        CursorSlice<Integer> last = CursorSlice.of(List.of(1, 2, 3), 3, String::valueOf);
+        assertEquals(List.of(1, 2, 3), last.content());
+        assertNull(last.nextCursor());
+        assertFalse(last.hasNext());
+        
+        CursorSlice<Integer> more = CursorSlice.of(List.of(1, 2, 3, 4), 3, String::valueOf);
+        assertEquals(List.of(1, 2, 3), more.content());
+        assertEquals("3", more.nextCursor());
+        assertTrue(more.hasNext());
+    }
+    
+    @Test
+    void scrollingVisitsEveryActiveProductOnceInKeyOrder() {
+        Category category = createCategory(null);
+        // Repeated prices, so the id has to break ties between slices
+        for (int i = 0; i < 7; i++) {
+            createProduct(category, new BigDecimal(i % 2 == 0 ? "5.00" : "7.50"), true);
+        }
+        createProduct(category, new BigDecimal("5.00"), false);
+        List<Long> active = productRepository.findAll().stream()
+                .filter(Product::getIsActive)
+                .map(Product::getId)
+                .sorted()
+                .toList();
+        
+        List<ProductSummary> byId = scroll(productService::scrollActiveById, 3);
+        assertEquals(active, byId.stream().map(ProductSummary::id).toList());
+        
+        List<ProductSummary> byPrice = scroll(productService::scrollActiveByPrice, 3);
+        assertEquals(active, byPrice.stream().map(ProductSummary::id).sorted().toList());
+        List<ProductSummary> sorted = new ArrayList<>(byPrice);
+        sorted.sort(Comparator.comparing(ProductSummary::price).thenComparing(ProductSummary::id));
+        assertEquals(sorted, byPrice);
+    }
+    
+    @Test
+    void categoryTreeSlicesIncludeSubcategories() {
+        Category parent = createCategory(null);
+        Category child = createCategory(parent);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(createProduct(parent, BigDecimal.ONE, true).getId());
+            ids.add(createProduct(child, BigDecimal.TEN, true).getId());
+        }
+        
+        List<Long> visited = new ArrayList<>();
+        Long afterId = null;
+        do {
+            CursorSlice<ProductSummary> slice = productService.findByCategoryTree(parent.getId(), afterId, 4);
+            slice.content().forEach(product -> visited.add(product.id()));
+            afterId = slice.hasNext() ? KeysetCursor.decodeId(slice.nextCursor()) : null;
+        } while (afterId != null);
+        
+        assertEquals(ids.stream().sorted().toList(), visited);
+        assertEquals(List.of(), productService.findByCategoryTree(Long.MAX_VALUE, null, 4).content());
+    }
+    
+    private List<ProductSummary> scroll(BiFunction<String, Integer, CursorSlice<ProductSummary>> page, int size) {
+        List<ProductSummary> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorSlice<ProductSummary> slice = page.apply(cursor, size);
+            assertTrue(slice.content().size() <= size);
+            rows.addAll(slice.content());
+            cursor = slice.nextCursor();
+        } while (cursor != null);
+        return rows;
+    }
+    
+    private Category createCategory(Category parent) {
+        return categoryService.save(TestData.category(parent));
+    }
+    
+    private Product createProduct(Category category, BigDecimal price, boolean active) {
+        Product product = TestData.product(category, 1);
+        product.setPrice(price);
+        product.setActive(active);
+        return productRepository.save(product);
+    }
+}
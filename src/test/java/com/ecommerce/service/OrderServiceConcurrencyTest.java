@@ -0,0 +1,154 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.PaymentStatus;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class OrderServiceConcurrencyTest {
+    
+    private static final int ORDERS = 20;
+    private static final int THREADS = 8;
+    private static final int QUANTITY = 2;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private enum Outcome { CANCELLED, PAID, REJECTED }
+    
+    @Test
+    void cancelAndPaymentRacesLeaveEveryOrderConsistent() throws Exception {
+        int initialStock = ORDERS * QUANTITY;
+        Product product = createProduct("Contended SKU", initialStock);
+        User user = userRepository.findAll().get(0);
+        int cancelledOrders = 0;
+        double conflictsBefore = retriedConflicts();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = orderService.createOrder(TestData.order(user, product, QUANTITY));
+                Payment payment = paymentService.createPayment(Payment.builder()
+                        .order(order)
+                        .paymentMethod("CREDIT_CARD")
+                        .build());
+                
+                // Half the threads cancel the order and half pay it, all released at once
+                CountDownLatch start = new CountDownLatch(1);
+                List<Callable<Outcome>> tasks = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    boolean cancel = t % 2 == 0;
+                    tasks.add(() -> {
+                        start.await();
+                        try {
+                            if (cancel) {
+                                orderService.cancelOrder(order.getId());
+                                return Outcome.CANCELLED;
+                            }
+                            paymentService.processPayment(payment.getId());
+                            return Outcome.PAID;
+                        } catch (IllegalStateException e) {
+                            // Lost the race to the other side, or to another cancellation
+                            return Outcome.REJECTED;
+                        }
+                    });
+                }
+                List<Future<Outcome>> futures = new ArrayList<>();
+                for (Callable<Outcome> task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+                start.countDown();
+                List<Outcome> outcomes = new ArrayList<>();
+                for (Future<Outcome> future : futures) {
+                    // A conflict that survived every retry fails the test here
+                    outcomes.add(future.get(30, TimeUnit.SECONDS));
+                }
+                
+                long cancellations = outcomes.stream().filter(outcome -> outcome == Outcome.CANCELLED).count();
+                long payments = outcomes.stream().filter(outcome -> outcome == Outcome.PAID).count();
+                OrderStatus status = orderRepository.findById(order.getId()).orElseThrow().getStatus();
+                PaymentStatus paymentStatus = paymentRepository.findById(payment.getId()).orElseThrow().getStatus();
+                if (status == OrderStatus.CANCELLED) {
+                    cancelledOrders++;
+                    assertEquals(1, cancellations, "order cancelled more than once");
+                    assertEquals(0, payments, "cancelled order was paid");
+                    assertEquals(PaymentStatus.PENDING, paymentStatus);
+                } else {
+                    assertEquals(OrderStatus.PROCESSING, status);
+                    assertEquals(0, cancellations, "paid order was cancelled");
+                    assertTrue(payments > 0);
+                    assertEquals(PaymentStatus.COMPLETED, paymentStatus);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        
+        // Every cancellation restored the stock of its order exactly once
+        assertEquals(cancelledOrders * QUANTITY,
+                productRepository.findById(product.getId()).orElseThrow().getStock());
+        // The races did collide, and the losers were retried rather than failed
+        assertTrue(retriedConflicts() > conflictsBefore, "no conflict was retried");
+    }
+    
+    private double retriedConflicts() {
+        return meterRegistry.find("ecommerce.conflicts").tag("outcome", "retried").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+    
+    private Product createProduct(String name, int stock) {
+        Product product = TestData.product(categoryRepository.save(TestData.category()), stock);
+        product.setName(name);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.dto.OrderTransitionResult;
+import com.ecommerce.model.dto.OrderTransitionResult.Outcome;
+import com.ecommerce.model.dto.OrderTransitionResult.Result;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.OrderStatus;
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.PaymentStatus;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class OrderTransitionsTest {
+    
+    private static final int QUANTITY = 2;
+    private static final long UNKNOWN_ORDER = Long.MAX_VALUE;
+    
+    @Autowired
+    private OrderTransitions orderTransitions;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Product product;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(TestData.category());
+        product = productRepository.save(TestData.product(category, 10));
+        user = userRepository.findAll().get(0);
+    }
+    
+    @Test
+    void bulkCancelRestoresStockOfTheOrdersItMoves() {
+        Order first = createOrder();
+        Order second = createOrder();
+        Order shipped = createOrder();
+        orderTransitions.apply(List.of(shipped.getId()), OrderStatus.CONFIRMED);
+        orderTransitions.apply(List.of(shipped.getId()), OrderStatus.PROCESSING);
+        assertEquals(10 - 3 * QUANTITY, stock());
+        
+        OrderTransitionResult result = orderTransitions.apply(
+                List.of(shipped.getId(), first.getId(), UNKNOWN_ORDER, second.getId(), first.getId()),
+                OrderStatus.CANCELLED);
+        
+        assertEquals(4, result.requested());
+        assertEquals(2, result.applied());
+        assertEquals(List.of(
+                new Outcome(shipped.getId(), OrderStatus.PROCESSING, Result.NOT_ALLOWED),
+                new Outcome(first.getId(), OrderStatus.PENDING, Result.APPLIED),
+                new Outcome(UNKNOWN_ORDER, null, Result.NOT_FOUND),
+                new Outcome(second.getId(), OrderStatus.PENDING, Result.APPLIED)), result.outcomes());
+        assertEquals(OrderStatus.PROCESSING, status(shipped));
+        assertEquals(10 - QUANTITY, stock());
+        
+        // Cancelling again changes nothing, and the stock is not restored twice
+        OrderTransitionResult repeated = orderTransitions.apply(List.of(first.getId()), OrderStatus.CANCELLED);
+        assertEquals(Result.UNCHANGED, repeated.outcomes().get(0).result());
+        assertEquals(10 - QUANTITY, stock());
+    }
+    
+    @Test
+    void transitionsOutsideTheTableAreNotApplied() {
+        Order order = createOrder();
+        
+        OrderTransitionResult skipped = orderTransitions.apply(List.of(order.getId()), OrderStatus.SHIPPED);
+        assertEquals(0, skipped.applied());
+        assertEquals(Result.NOT_ALLOWED, skipped.outcomes().get(0).result());
+        assertEquals(OrderStatus.PENDING, status(order));
+        
+        orderTransitions.apply(List.of(order.getId()), OrderStatus.CANCELLED);
+        OrderTransitionResult reopened = orderTransitions.apply(List.of(order.getId()), OrderStatus.PENDING);
+        assertEquals(Result.NOT_ALLOWED, reopened.outcomes().get(0).result());
+        assertEquals(OrderStatus.CANCELLED, status(order));
+        assertThrows(IllegalArgumentException.class, () -> orderTransitions.apply(List.of(order.getId()), null));
+    }
+    
+    @Test
+    void paymentsFollowTheTransitionTable() {
+        Order declined = createOrder();
+        Payment payment = paymentService.createPayment(newPayment(declined));
+        assertEquals(OrderStatus.CONFIRMED, status(declined));
+        
+        // A failed payment cancels its order through the same path, stock included
+        paymentService.failPayment(payment.getId());
+        assertEquals(OrderStatus.CANCELLED, status(declined));
+        assertEquals(PaymentStatus.FAILED, paymentService.findById(payment.getId()).orElseThrow().getStatus());
+        assertEquals(10, stock());
+        assertThrows(IllegalStateException.class, () -> paymentService.processPayment(payment.getId()));
+        
+        Order paid = createOrder();
+        Payment completed = paymentService.createPayment(newPayment(paid));
+        paymentService.processPayment(completed.getId());
+        assertEquals(OrderStatus.PROCESSING, status(paid));
+        assertThrows(IllegalStateException.class, () -> paymentService.failPayment(completed.getId()));
+        assertEquals(OrderStatus.PROCESSING, status(paid));
+        assertEquals(10 - QUANTITY, stock());
+        
+        Order cancelled = createOrder();
+        orderService.cancelOrder(cancelled.getId());
+        assertThrows(IllegalStateException.class, () -> paymentService.createPayment(newPayment(cancelled)));
+    }
+    
+    private Order createOrder() {
+        return orderService.createOrder(TestData.order(user, product, QUANTITY));
+    }
+    
+    private Payment newPayment(Order order) {
+        return Payment.builder()
+                .order(Order.builder().id(order.getId()).build())
+                .paymentMethod("CREDIT_CARD")
+                .build();
+    }
+    
+    private OrderStatus status(Order order) {
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+    
+    private int stock() {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Order;
+import com.ecommerce.model.entity.Payment;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.model.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class PaymentStatsTest {
+    
+    private static final int THREADS = 8;
+    
+    @Autowired
+    private PaymentStats paymentStats;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Product product;
+    private User user;
+    
+    // A method of its own, so the first payments of the test race to insert its rollup row for today
+    private String paymentMethod;
+    
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(TestData.category());
+        product = productRepository.save(TestData.product(category, 1000));
+        user = userRepository.findAll().get(0);
+        paymentMethod = "TEST-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    @Test
+    void rollupsMatchThePaymentsTableAfterEveryKindOfChange() throws Exception {
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payments.add(paymentService.createPayment(newPayment(createOrder(i + 1))));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Payment>> futures = new ArrayList<>();
+            for (Payment payment : payments) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return paymentService.processPayment(payment.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<Payment> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        assertRollupsMatchPayments();
+        
+        // Processing again leaves the rollups alone
+        paymentService.processPayment(payments.get(0).getId());
+        assertRollupsMatchPayments();
+        
+        paymentService.deleteById(payments.get(1).getId());
+        assertRollupsMatchPayments();
+        
+        // Deleting an order takes its completed payment with it
+        orderService.deleteById(payments.get(2).getOrder().getId());
+        assertRollupsMatchPayments();
+        
+        Payment declined = paymentService.createPayment(newPayment(createOrder(1)));
+        paymentService.failPayment(declined.getId());
+        assertRollupsMatchPayments();
+        
+        assertEquals((long) THREADS - 2, methodStatistics(paymentService.getPaymentMethodStatistics())[1]);
+    }
+    
+    private void assertRollupsMatchPayments() {
+        assertEquals(paymentRepository.countCompletedPayments(), paymentStats.countCompletedPayments());
+        assertEquals(paymentRepository.getTotalRevenue(), paymentStats.getTotalRevenue(), 0.001);
+        Object[] live = methodStatistics(paymentRepository.getPaymentMethodStatistics());
+        Object[] rollup = methodStatistics(paymentStats.getPaymentMethodStatistics());
+        assertEquals(((Number) live[1]).longValue(), ((Number) rollup[1]).longValue());
+        assertEquals(0, new BigDecimal(live[2].toString()).compareTo(new BigDecimal(rollup[2].toString())));
+    }
+    
+    // [method, count, total] of this test's payment method
+    private Object[] methodStatistics(List<Object[]> rows) {
+        return rows.stream()
+                .filter(row -> paymentMethod.equals(row[0]))
+                .findFirst()
+                .map(row -> new Object[]{row[0], ((Number) row[1]).longValue(), row[2]})
+                .orElse(new Object[]{paymentMethod, 0L, BigDecimal.ZERO});
+    }
+    
+    private Order createOrder(int quantity) {
+        return orderService.createOrder(TestData.order(user, product, quantity));
+    }
+    
+    private Payment newPayment(Order order) {
+        return Payment.builder()
+                .order(Order.builder().id(order.getId()).build())
+                .paymentMethod(paymentMethod)
+                .build();
+    }
+}
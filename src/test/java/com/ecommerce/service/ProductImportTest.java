@@ -0,0 +1,147 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.dto.ProductImportResult;
+import com.ecommerce.model.dto.ProductImportRow;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ProductImportTest {
+    
+    @Autowired
+    private ProductImport productImport;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Category category;
+    private String prefix;
+    
+    @BeforeEach
+    void setUp() {
+        category = createCategory();
+        prefix = UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+    
+    @Test
+    void invalidRowsFailOnTheirOwn() {
+        ProductImport.Session session = productImport.begin();
+        session.add(1, row("A", "Widget", "5.00", 3, category.getId()));
+        session.add(2, row("B", "", "5.00", 3, category.getId()));
+        session.add(3, row("C", "Gadget", "5.001", 3, category.getId()));
+        session.add(4, row("D", "Gizmo", "5.00", -1, category.getId()));
+        session.add(5, row("E", "Doohickey", "5.00", 3, Long.MAX_VALUE));
+        session.reject(6, "expected 8 values, found 2");
+        ProductImportResult result = session.finish();
+        
+        assertEquals(6, result.rows());
+        assertEquals(1, result.imported());
+        assertEquals(0, result.superseded());
+        assertEquals(5, result.failed());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L),
+                result.errors().stream().map(ProductImportResult.RowError::line).toList());
+        assertEquals("name is required", result.errors().get(0).message());
+        assertEquals(prefix + "B", result.errors().get(0).sku());
+        assertEquals(1, countSkus());
+    }
+    
+    @Test
+    void laterRowForTheSameSkuSupersedesTheEarlierOne() {
+        ProductImport.Session session = productImport.begin();
+        session.add(1, row("A", "First", "1.00", 1, category.getId()));
+        session.add(2, row("B", "Other", "2.00", 2, category.getId()));
+        session.add(3, row("A", "Second", "3.00", 3, category.getId()));
+        ProductImportResult result = session.finish();
+        
+        assertEquals(3, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.superseded());
+        assertEquals(0, result.failed());
+        assertEquals(2, countSkus());
+        assertEquals("Second", jdbcTemplate.queryForObject(
+                "SELECT name FROM products WHERE sku = ?", String.class, prefix + "A"));
+        
+        // Importing the sku again overwrites the product instead of adding one
+        ProductImport.Session again = productImport.begin();
+        again.add(1, row("A", "Third", "4.00", 4, category.getId()));
+        assertEquals(1, again.finish().imported());
+        assertEquals(2, countSkus());
+        assertEquals("Third", jdbcTemplate.queryForObject(
+                "SELECT name FROM products WHERE sku = ?", String.class, prefix + "A"));
+    }
+    
+    @Test
+    void rejectedBatchIsRetriedRowByRow() {
+        // Valid when the import starts, gone by the time its batch is written
+        Category removed = createCategory();
+        ProductImport.Session session = productImport.begin();
+        categoryRepository.deleteById(removed.getId());
+        
+        session.add(1, row("A", "Kept", "1.00", 1, category.getId()));
+        session.add(2, row("B", "Orphan", "1.00", 1, removed.getId()));
+        session.add(3, row("C", "Kept too", "1.00", 1, category.getId()));
+        ProductImportResult result = session.finish();
+        
+        assertEquals(2, result.imported());
+        assertEquals(1, result.failed());
+        assertEquals(2L, result.errors().get(0).line());
+        assertEquals(prefix + "B", result.errors().get(0).sku());
+        assertEquals(2, countSkus());
+    }
+    
+    @Test
+    void updateWithoutSkuKeepsTheCurrentOne() {
+        Product kept = TestData.product(category, 5);
+        kept.setSku(prefix + "KEEP");
+        Product product = productRepository.save(kept);
+        
+        Product changes = TestData.product(category, 5);
+        changes.setId(product.getId());
+        changes.setName("Renamed");
+        productService.update(changes);
+        
+        Product updated = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals("Renamed", updated.getName());
+        assertEquals(prefix + "KEEP", updated.getSku());
+        assertTrue(updated.getVersion() > product.getVersion());
+    }
+    
+    private ProductImportRow row(String sku, String name, String price, int stock, Long categoryId) {
+        return new ProductImportRow(prefix + sku, name, null, new BigDecimal(price), stock, categoryId, null, true);
+    }
+    
+    private Category createCategory() {
+        return categoryRepository.save(TestData.category());
+    }
+    
+    private int countSkus() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products WHERE sku LIKE ?", Integer.class, prefix + "%");
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.controller.ProductController;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ProductServiceConcurrencyTest {
+    
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private ProductController productController;
+    
+    private Category category;
+    
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(TestData.category());
+    }
+    
+    @Test
+    void hotProductIsNeverOversold() throws Exception {
+        int initialStock = 150;
+        Product product = createProduct("Hot SKU", initialStock);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        
+        runConcurrently(() -> {
+            try {
+                productService.decreaseStock(product.getId(), 1);
+                sold.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        
+        assertEquals(initialStock, sold.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - initialStock, rejected.get());
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+    
+    @Test
+    void cartsLockingProductsInOppositeOrderDoNotDeadlock() throws Exception {
+        Product first = createProduct("Cart SKU A", 1000);
+        Product second = createProduct("Cart SKU B", 1000);
+        AtomicInteger sequence = new AtomicInteger();
+        
+        runConcurrently(() -> {
+            // Alternate the insertion order so half the carts list the products in reverse
+            Map<Long, Integer> cart = new LinkedHashMap<>();
+            if (sequence.incrementAndGet() % 2 == 0) {
+                cart.put(first.getId(), 1);
+                cart.put(second.getId(), 1);
+            } else {
+                cart.put(second.getId(), 1);
+                cart.put(first.getId(), 1);
+            }
+            productService.decreaseStock(cart);
+        });
+        
+        int expected = 1000 - THREADS * ATTEMPTS_PER_THREAD;
+        assertEquals(expected, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(expected, productRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+    
+    @Test
+    void updateWithAStaleVersionIsAConflict() {
+        Product product = createProduct("Edited SKU", 5);
+        Product stale = TestData.product(category, 5);
+        stale.setName("Edited SKU, first edit");
+        stale.setVersion(product.getVersion());
+        productService.updateStock(product.getId(), 4);
+        
+        assertEquals(HttpStatus.CONFLICT, productController.updateProduct(product.getId(), stale).getStatusCode());
+        assertEquals("Edited SKU", productRepository.findById(product.getId()).orElseThrow().getName());
+    }
+    
+    private Product createProduct(String name, int stock) {
+        Product product = TestData.product(category, stock);
+        product.setName(name);
+        return productRepository.save(product);
+    }
+    
+    private void runConcurrently(Runnable attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(() -> {
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        attempt.run();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.service;
+
+import com.ecommerce.TestData;
+import com.ecommerce.model.dto.StockAdjustment;
+import com.ecommerce.model.dto.StockSyncResult;
+import com.ecommerce.model.entity.Category;
+import com.ecommerce.model.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class StockSyncTest {
+    
+    @Autowired
+    private StockSync stockSync;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    private Category category;
+    
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(TestData.category());
+    }
+    
+    @Test
+    void adjustmentsOfAProductApplyInRequestOrder() {
+        Product first = createProduct(10);
+        Product second = createProduct(10);
+        
+        StockSyncResult result = stockSync.apply(List.of(
+                delta(second.getId(), -4),
+                absolute(first.getId(), 40),
+                delta(first.getId(), -3),
+                absolute(second.getId(), 7)));
+        
+        assertEquals(new StockSyncResult(4, 4, List.of(), List.of(), List.of()), result);
+        assertEquals(37, stockOf(first));
+        assertEquals(7, stockOf(second));
+    }
+    
+    @Test
+    void skippedAdjustmentsAreReportedAndTheRestApplied() {
+        Product product = createProduct(5);
+        Long unknown = Long.MAX_VALUE;
+        
+        StockSyncResult result = stockSync.apply(Arrays.asList(
+                new StockAdjustment(product.getId(), 1, 1),
+                new StockAdjustment(product.getId(), null, null),
+                absolute(product.getId(), -1),
+                null,
+                new StockAdjustment(null, 3, null),
+                delta(unknown, 2),
+                delta(product.getId(), -6),
+                delta(product.getId(), Integer.MAX_VALUE),
+                delta(product.getId(), -2)));
+        
+        assertEquals(new StockSyncResult(9, 1, List.of(0, 1, 2, 3, 4), List.of(unknown),
+                List.of(product.getId(), product.getId())), result);
+        assertEquals(3, stockOf(product));
+    }
+    
+    @Test
+    void chunksKeepTheAdjustmentsOfAProductTogether() {
+        List<Product> products = new ArrayList<>();
+        List<StockAdjustment> adjustments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Product product = createProduct(100);
+            products.add(product);
+            // Three adjustments per product, so they would straddle every chunk of two
+            adjustments.add(absolute(product.getId(), 50));
+            adjustments.add(delta(product.getId(), -i));
+            adjustments.add(delta(product.getId(), 10));
+        }
+        
+        int chunkSize = (int) ReflectionTestUtils.getField(stockSync, "chunkSize");
+        ReflectionTestUtils.setField(stockSync, "chunkSize", 2);
+        try {
+            assertEquals(new StockSyncResult(15, 15, List.of(), List.of(), List.of()), stockSync.apply(adjustments));
+        } finally {
+            ReflectionTestUtils.setField(stockSync, "chunkSize", chunkSize);
+        }
+        for (int i = 0; i < products.size(); i++) {
+            assertEquals(60 - i, stockOf(products.get(i)));
+        }
+    }
+    
+    @Test
+    void syncedProductsAreEvictedFromTheCache() {
+        Product product = createProduct(8);
+        assertEquals(8, productService.findDetailsById(product.getId()).orElseThrow().stock());
+        
+        stockSync.apply(List.of(absolute(product.getId(), 21)));
+        
+        assertEquals(21, productService.findDetailsById(product.getId()).orElseThrow().stock());
+    }
+    
+    @Test
+    void levelsIncludeOrdersTheLedgerHasNotFlushed() {
+        Product product = createProduct(10);
+        withInventoryLedger(() -> {
+            createOrder(product, 2);
+            stockSync.apply(List.of(absolute(product.getId(), 50)));
+            assertEquals(50, inventoryLedger.getAvailableStock(product.getId()));
+            inventoryLedger.flush();
+            assertEquals(50, stockOf(product));
+            
+            createOrder(product, 3);
+            stockSync.apply(List.of(absolute(product.getId(), 20), delta(product.getId(), -4)));
+            assertEquals(16, inventoryLedger.getAvailableStock(product.getId()));
+            inventoryLedger.flush();
+            assertEquals(16, stockOf(product));
+            
+            createOrder(product, 15);
+            assertEquals(List.of(product.getId()), stockSync.apply(List.of(delta(product.getId(), -2))).belowZero());
+            productService.updateStock(product.getId(), 30);
+            assertEquals(30, inventoryLedger.getAvailableStock(product.getId()));
+            inventoryLedger.flush();
+            assertEquals(30, stockOf(product));
+        });
+    }
+    
+    // Turns the ledger on for this context while the action runs, and flushes what it reserved before turning it off
+    private void withInventoryLedger(Runnable action) {
+        ReflectionTestUtils.setField(inventoryLedger, "enabled", true);
+        try {
+            action.run();
+        } finally {
+            inventoryLedger.flush();
+            ReflectionTestUtils.setField(inventoryLedger, "enabled", false);
+        }
+    }
+    
+    private void createOrder(Product product, int quantity) {
+        orderService.createOrder(TestData.order(userRepository.findAll().get(0), product, quantity));
+    }
+    
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+    
+    private static StockAdjustment absolute(Long productId, int stock) {
+        return new StockAdjustment(productId, stock, null);
+    }
+    
+    private static StockAdjustment delta(Long productId, int delta) {
+        return new StockAdjustment(productId, null, delta);
+    }
+    
+    private Product createProduct(int stock) {
+        return productRepository.save(TestData.product(category, stock));
+    }
+}